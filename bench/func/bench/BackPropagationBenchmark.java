@@ -0,0 +1,86 @@
+package func.bench;
+
+import dist.Distribution;
+import func.nn.backprop.BackPropagationNetwork;
+import func.nn.backprop.BackPropagationNetworkFactory;
+import func.nn.backprop.BatchBackPropagationTrainer;
+import func.nn.backprop.RPROPUpdateRule;
+import shared.DataSet;
+import shared.Instance;
+import shared.SumOfSquaresError;
+import shared.Trainer;
+import shared.bench.Benchmark;
+
+/**
+ * A benchmark of batch back propagation on a network built from
+ * node and link objects, the size is the number of hidden nodes.
+ * Each operation is one epoch over the patterns.
+ * @version 1.0
+ */
+public class BackPropagationBenchmark extends Benchmark {
+    /** The number of inputs */
+    protected static final int INPUTS = 32;
+    /** The number of outputs */
+    protected static final int OUTPUTS = 4;
+    /** The number of patterns */
+    protected static final int PATTERNS = 1000;
+
+    /**
+     * The trainer
+     */
+    private Trainer trainer;
+
+    /**
+     * Make random classification patterns
+     * @return the patterns
+     */
+    protected static DataSet randomPatterns() {
+        Instance[] patterns = new Instance[PATTERNS];
+        for (int i = 0; i < PATTERNS; i++) {
+            double[] data = new double[INPUTS];
+            for (int j = 0; j < INPUTS; j++) {
+                data[j] = Distribution.random.nextGaussian();
+            }
+            double[] label = new double[OUTPUTS];
+            label[Distribution.random.nextInt(OUTPUTS)] = 1;
+            patterns[i] = new Instance(data);
+            patterns[i].setLabel(new Instance(label));
+        }
+        return new DataSet(patterns);
+    }
+
+    /**
+     * Make the trainer to benchmark
+     * @param patterns the patterns
+     * @param hidden the number of hidden nodes
+     * @return the trainer
+     */
+    protected Trainer createTrainer(DataSet patterns, int hidden) {
+        BackPropagationNetwork network = new BackPropagationNetworkFactory()
+            .createClassificationNetwork(new int[] { INPUTS, hidden, OUTPUTS });
+        return new BatchBackPropagationTrainer(patterns, network,
+            new SumOfSquaresError(), new RPROPUpdateRule());
+    }
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        trainer = createTrainer(randomPatterns(), size);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        return trainer.train();
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 16, 64, 256 };
+    }
+
+}
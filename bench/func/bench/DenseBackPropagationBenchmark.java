@@ -0,0 +1,31 @@
+package func.bench;
+
+import func.nn.backprop.MiniBatchBackPropagationTrainer;
+import func.nn.backprop.RPROPUpdateRule;
+import func.nn.dense.DenseNetwork;
+import func.nn.dense.DenseNetworkFactory;
+import shared.DataSet;
+import shared.SumOfSquaresError;
+import shared.Trainer;
+
+/**
+ * A benchmark of full batch back propagation on a dense network
+ * using the mini batch trainer on the common pool, comparable to
+ * the BackPropagationBenchmark.
+ * @version 1.0
+ */
+public class DenseBackPropagationBenchmark extends BackPropagationBenchmark {
+
+    /**
+     * @see func.bench.BackPropagationBenchmark#createTrainer(shared.DataSet, int)
+     */
+    protected Trainer createTrainer(DataSet patterns, int hidden) {
+        DenseNetwork network = new DenseNetworkFactory()
+            .createClassificationNetwork(new int[] { INPUTS, hidden, OUTPUTS });
+        MiniBatchBackPropagationTrainer trainer = new MiniBatchBackPropagationTrainer(
+            patterns, network, new SumOfSquaresError(), new RPROPUpdateRule(), PATTERNS);
+        trainer.setShuffle(false);
+        return trainer;
+    }
+
+}
@@ -0,0 +1,76 @@
+package func.bench;
+
+import dist.Distribution;
+import func.inst.KDTree;
+import shared.DataSet;
+import shared.Instance;
+import shared.bench.Benchmark;
+
+/**
+ * A benchmark of k nearest neighbor queries on a kd tree,
+ * the size is the number of points in the tree.
+ * Each operation is a batch of queries.
+ * @version 1.0
+ */
+public class KDTreeBenchmark extends Benchmark {
+    /** The number of dimensions */
+    private static final int DIMENSIONS = 8;
+    /** The number of neighbors to find */
+    private static final int K = 10;
+    /** The number of queries in an operation */
+    private static final int QUERIES = 100;
+
+    /**
+     * The tree
+     */
+    private KDTree tree;
+
+    /**
+     * The query points
+     */
+    private Instance[] queries;
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        tree = new KDTree(new DataSet(randomPoints(size)));
+        queries = randomPoints(QUERIES);
+    }
+
+    /**
+     * Make random points in the unit cube
+     * @param count the number of points
+     * @return the points
+     */
+    private static Instance[] randomPoints(int count) {
+        Instance[] points = new Instance[count];
+        for (int i = 0; i < count; i++) {
+            double[] data = new double[DIMENSIONS];
+            for (int j = 0; j < DIMENSIONS; j++) {
+                data[j] = Distribution.random.nextDouble();
+            }
+            points[i] = new Instance(data);
+        }
+        return points;
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        double result = 0;
+        for (int i = 0; i < queries.length; i++) {
+            result += tree.knn(queries[i], K).length;
+        }
+        return result;
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 1000, 10000, 100000 };
+    }
+
+}
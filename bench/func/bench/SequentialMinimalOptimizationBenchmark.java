@@ -0,0 +1,58 @@
+package func.bench;
+
+import dist.Distribution;
+import func.svm.RBFKernel;
+import func.svm.SequentialMinimalOptimization;
+import shared.DataSet;
+import shared.Instance;
+import shared.bench.Benchmark;
+
+/**
+ * A benchmark of training a support vector machine with an rbf
+ * kernel on two overlapping gaussian clouds, the size is the
+ * number of examples.  Each operation is a complete training run.
+ * @version 1.0
+ */
+public class SequentialMinimalOptimizationBenchmark extends Benchmark {
+    /** The number of dimensions */
+    private static final int DIMENSIONS = 10;
+
+    /**
+     * The examples
+     */
+    private DataSet examples;
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        Instance[] instances = new Instance[size];
+        for (int i = 0; i < size; i++) {
+            boolean label = i % 2 == 0;
+            double[] data = new double[DIMENSIONS];
+            for (int j = 0; j < DIMENSIONS; j++) {
+                data[j] = Distribution.random.nextGaussian() + (label ? .5 : -.5);
+            }
+            instances[i] = new Instance(data, label);
+        }
+        examples = new DataSet(instances);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        SequentialMinimalOptimization smo =
+            new SequentialMinimalOptimization(examples, new RBFKernel(.5), 1);
+        smo.train();
+        return smo.getNumberOfIterations();
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 200, 500, 2000 };
+    }
+
+}
@@ -0,0 +1,26 @@
+package opt.bench;
+
+import opt.OptimizationAlgorithm;
+import opt.prob.MIMIC;
+
+/**
+ * A benchmark of MIMIC
+ * @version 1.0
+ */
+public class MIMICBenchmark extends OptimizationBenchmark {
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#createAlgorithm(int)
+     */
+    protected OptimizationAlgorithm createAlgorithm(int size) {
+        return new MIMIC(200, 20, pop);
+    }
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#getIterations()
+     */
+    protected int getIterations() {
+        return 1;
+    }
+
+}
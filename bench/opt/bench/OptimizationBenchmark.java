@@ -0,0 +1,107 @@
+package opt.bench;
+
+import java.util.Arrays;
+
+import dist.DiscreteDependencyTree;
+import dist.DiscreteUniformDistribution;
+import dist.Distribution;
+import opt.DiscreteChangeOneNeighbor;
+import opt.EvaluationFunction;
+import opt.GenericHillClimbingProblem;
+import opt.HillClimbingProblem;
+import opt.NeighborFunction;
+import opt.OptimizationAlgorithm;
+import opt.example.FourPeaksEvaluationFunction;
+import opt.ga.CrossoverFunction;
+import opt.ga.DiscreteChangeOneMutation;
+import opt.ga.GenericGeneticAlgorithmProblem;
+import opt.ga.GeneticAlgorithmProblem;
+import opt.ga.MutationFunction;
+import opt.ga.SingleCrossOver;
+import opt.prob.GenericProbabilisticOptimizationProblem;
+import opt.prob.ProbabilisticOptimizationProblem;
+import shared.bench.Benchmark;
+
+/**
+ * A benchmark of an optimization algorithm on the four peaks problem,
+ * the size is the number of bits.  Each operation is a fixed number
+ * of training iterations of the algorithm.
+ * @version 1.0
+ */
+public abstract class OptimizationBenchmark extends Benchmark {
+
+    /**
+     * The evaluation function
+     */
+    protected EvaluationFunction ef;
+
+    /**
+     * The hill climbing problem
+     */
+    protected HillClimbingProblem hcp;
+
+    /**
+     * The genetic algorithm problem
+     */
+    protected GeneticAlgorithmProblem gap;
+
+    /**
+     * The probabilistic optimization problem
+     */
+    protected ProbabilisticOptimizationProblem pop;
+
+    /**
+     * The algorithm being run
+     */
+    private OptimizationAlgorithm algorithm;
+
+    /**
+     * Make the algorithm to benchmark, after the problems are set up
+     * @param size the number of bits
+     * @return the algorithm
+     */
+    protected abstract OptimizationAlgorithm createAlgorithm(int size);
+
+    /**
+     * Get the number of training iterations in an operation
+     * @return the number of iterations
+     */
+    protected abstract int getIterations();
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        int[] ranges = new int[size];
+        Arrays.fill(ranges, 2);
+        ef = new FourPeaksEvaluationFunction(size / 5);
+        Distribution odd = new DiscreteUniformDistribution(ranges);
+        NeighborFunction nf = new DiscreteChangeOneNeighbor(ranges);
+        MutationFunction mf = new DiscreteChangeOneMutation(ranges);
+        CrossoverFunction cf = new SingleCrossOver();
+        Distribution df = new DiscreteDependencyTree(.1, ranges);
+        hcp = new GenericHillClimbingProblem(ef, odd, nf);
+        gap = new GenericGeneticAlgorithmProblem(ef, odd, mf, cf);
+        pop = new GenericProbabilisticOptimizationProblem(ef, odd, df);
+        algorithm = createAlgorithm(size);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        double result = 0;
+        for (int i = 0; i < getIterations(); i++) {
+            result += algorithm.train();
+        }
+        return result;
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 50, 200, 1000 };
+    }
+
+}
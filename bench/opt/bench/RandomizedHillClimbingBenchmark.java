@@ -0,0 +1,26 @@
+package opt.bench;
+
+import opt.OptimizationAlgorithm;
+import opt.RandomizedHillClimbing;
+
+/**
+ * A benchmark of randomized hill climbing
+ * @version 1.0
+ */
+public class RandomizedHillClimbingBenchmark extends OptimizationBenchmark {
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#createAlgorithm(int)
+     */
+    protected OptimizationAlgorithm createAlgorithm(int size) {
+        return new RandomizedHillClimbing(hcp);
+    }
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#getIterations()
+     */
+    protected int getIterations() {
+        return 1000;
+    }
+
+}
@@ -0,0 +1,26 @@
+package opt.bench;
+
+import opt.OptimizationAlgorithm;
+import opt.SimulatedAnnealing;
+
+/**
+ * A benchmark of simulated annealing
+ * @version 1.0
+ */
+public class SimulatedAnnealingBenchmark extends OptimizationBenchmark {
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#createAlgorithm(int)
+     */
+    protected OptimizationAlgorithm createAlgorithm(int size) {
+        return new SimulatedAnnealing(1E11, .95, hcp);
+    }
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#getIterations()
+     */
+    protected int getIterations() {
+        return 1000;
+    }
+
+}
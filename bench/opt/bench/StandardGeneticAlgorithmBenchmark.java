@@ -0,0 +1,26 @@
+package opt.bench;
+
+import opt.OptimizationAlgorithm;
+import opt.ga.StandardGeneticAlgorithm;
+
+/**
+ * A benchmark of the standard genetic algorithm
+ * @version 1.0
+ */
+public class StandardGeneticAlgorithmBenchmark extends OptimizationBenchmark {
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#createAlgorithm(int)
+     */
+    protected OptimizationAlgorithm createAlgorithm(int size) {
+        return new StandardGeneticAlgorithm(200, 100, 10, gap);
+    }
+
+    /**
+     * @see opt.bench.OptimizationBenchmark#getIterations()
+     */
+    protected int getIterations() {
+        return 10;
+    }
+
+}
@@ -0,0 +1,39 @@
+package shared.bench;
+
+/**
+ * A benchmark of a single operation, parameterized by a problem size.
+ * The runner calls setUp once for every size, and then times repeated
+ * calls to run.  Benchmarks should return something computed by the
+ * operation so the work can't be optimized away.
+ * @version 1.0
+ */
+public abstract class Benchmark {
+
+    /**
+     * Prepare to run the operation at the given size
+     * @param size the problem size
+     */
+    public abstract void setUp(int size);
+
+    /**
+     * Run the operation once
+     * @return a value computed by the operation
+     */
+    public abstract double run();
+
+    /**
+     * Get the default problem sizes
+     * @return the sizes
+     */
+    public abstract int[] getSizes();
+
+    /**
+     * Get the name of the benchmark
+     * @return the name
+     */
+    public String getName() {
+        String name = getClass().getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+}
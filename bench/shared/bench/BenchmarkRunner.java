@@ -0,0 +1,207 @@
+package shared.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dist.Distribution;
+import func.bench.BackPropagationBenchmark;
+import func.bench.DenseBackPropagationBenchmark;
+import func.bench.KDTreeBenchmark;
+import func.bench.SequentialMinimalOptimizationBenchmark;
+import opt.bench.MIMICBenchmark;
+import opt.bench.RandomizedHillClimbingBenchmark;
+import opt.bench.SimulatedAnnealingBenchmark;
+import opt.bench.StandardGeneticAlgorithmBenchmark;
+import util.ABAGAILArrays;
+import util.bench.CholeskyFactorizationBenchmark;
+import util.bench.LUDecompositionBenchmark;
+import util.bench.MatrixTimesBenchmark;
+import util.bench.SymmetricEigenvalueDecompositionBenchmark;
+
+/**
+ * Runs the benchmarks and reports the average time per operation.
+ * Every measurement iteration runs the operation repeatedly for a
+ * fixed amount of time, after a number of warm up iterations that
+ * are thrown away.  Options are
+ *   -wi n     the number of warm up iterations (default 3)
+ *   -i n      the number of measurement iterations (default 5)
+ *   -t ms     the length of each iteration in milliseconds (default 1000)
+ *   -p a,b,c  the problem sizes to use instead of the defaults
+ *   -seed n   the random seed reset before each set up (default 0)
+ * and any other arguments are substrings of the benchmark names to run.
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Where results are written so the JIT can't drop the work
+     */
+    public static volatile double sink;
+
+    /**
+     * The number of warm up iterations
+     */
+    private int warmupIterations = 3;
+
+    /**
+     * The number of measurement iterations
+     */
+    private int iterations = 5;
+
+    /**
+     * The length of each iteration in nanoseconds
+     */
+    private long iterationTime = 1000000000L;
+
+    /**
+     * The sizes to use, or null for the defaults
+     */
+    private int[] sizes;
+
+    /**
+     * The seed reset before each set up
+     */
+    private long seed;
+
+    /**
+     * Get all of the benchmarks
+     * @return the benchmarks
+     */
+    public static Benchmark[] benchmarks() {
+        return new Benchmark[] {
+            new RandomizedHillClimbingBenchmark(),
+            new SimulatedAnnealingBenchmark(),
+            new StandardGeneticAlgorithmBenchmark(),
+            new MIMICBenchmark(),
+            new KDTreeBenchmark(),
+            new SequentialMinimalOptimizationBenchmark(),
+            new BackPropagationBenchmark(),
+            new DenseBackPropagationBenchmark(),
+            new MatrixTimesBenchmark(),
+            new LUDecompositionBenchmark(),
+            new CholeskyFactorizationBenchmark(),
+            new SymmetricEigenvalueDecompositionBenchmark(),
+        };
+    }
+
+    /**
+     * Run a benchmark at every size and print the results
+     * @param benchmark the benchmark
+     */
+    public void run(Benchmark benchmark) {
+        int[] sizes = this.sizes == null ? benchmark.getSizes() : this.sizes;
+        for (int s = 0; s < sizes.length; s++) {
+            Distribution.random.setSeed(seed);
+            ABAGAILArrays.random.setSeed(seed);
+            benchmark.setUp(sizes[s]);
+            for (int i = 0; i < warmupIterations; i++) {
+                iteration(benchmark);
+            }
+            double[] times = new double[iterations];
+            double mean = 0;
+            for (int i = 0; i < iterations; i++) {
+                times[i] = iteration(benchmark);
+                mean += times[i];
+            }
+            mean /= iterations;
+            double variance = 0;
+            for (int i = 0; i < iterations; i++) {
+                variance += (times[i] - mean) * (times[i] - mean);
+            }
+            double deviation = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+            System.out.println(pad(benchmark.getName(), 44) + pad("" + sizes[s], 8)
+                + format(mean) + " +- " + format(deviation) + " ns/op");
+        }
+    }
+
+    /**
+     * Run one iteration of a benchmark
+     * @param benchmark the benchmark
+     * @return the average time per operation in nanoseconds
+     */
+    private double iteration(Benchmark benchmark) {
+        long operations = 0;
+        double result = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            result += benchmark.run();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationTime);
+        sink = result;
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * Pad a string with spaces
+     * @param s the string
+     * @param width the width to pad to
+     * @return the padded string
+     */
+    private static String pad(String s, int width) {
+        StringBuffer sb = new StringBuffer(s);
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Format a time
+     * @param time the time in nanoseconds
+     * @return the formatted time
+     */
+    private static String format(double time) {
+        return String.format("%14.1f", time);
+    }
+
+    /**
+     * Parse a list of sizes
+     * @param s the comma separated sizes
+     * @return the sizes
+     */
+    private static int[] parseSizes(String s) {
+        String[] parts = s.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    /**
+     * Run the benchmarks
+     * @param args the options and benchmark name filters
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        List filters = new ArrayList();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-wi")) {
+                runner.warmupIterations = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-i")) {
+                runner.iterations = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-t")) {
+                runner.iterationTime = Long.parseLong(args[++i]) * 1000000L;
+            } else if (args[i].equals("-p")) {
+                runner.sizes = parseSizes(args[++i]);
+            } else if (args[i].equals("-seed")) {
+                runner.seed = Long.parseLong(args[++i]);
+            } else {
+                filters.add(args[i]);
+            }
+        }
+        Benchmark[] benchmarks = benchmarks();
+        for (int i = 0; i < benchmarks.length; i++) {
+            boolean selected = filters.isEmpty();
+            for (int j = 0; j < filters.size() && !selected; j++) {
+                selected = benchmarks[i].getName().indexOf((String) filters.get(j)) >= 0;
+            }
+            if (selected) {
+                runner.run(benchmarks[i]);
+            }
+        }
+    }
+
+}
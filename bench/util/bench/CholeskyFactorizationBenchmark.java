@@ -0,0 +1,43 @@
+package util.bench;
+
+import shared.bench.Benchmark;
+import util.linalg.CholeskyFactorization;
+import util.linalg.Matrix;
+import util.linalg.RectangularMatrix;
+
+/**
+ * A benchmark of a cholesky factorization of a random symmetric positive definite matrix,
+ * the size is the number of rows and columns.
+ * @version 1.0
+ */
+public class CholeskyFactorizationBenchmark extends Benchmark {
+
+    /**
+     * The matrix to decompose
+     */
+    private Matrix a;
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        Matrix r = RectangularMatrix.random(size);
+        // r r^t plus the identity is positive definite
+        a = r.times(r.transpose()).plus(RectangularMatrix.eye(size));
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        return new CholeskyFactorization(a).determinant();
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 64, 256, 512 };
+    }
+
+}
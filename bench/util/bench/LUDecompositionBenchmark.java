@@ -0,0 +1,41 @@
+package util.bench;
+
+import shared.bench.Benchmark;
+import util.linalg.LUDecomposition;
+import util.linalg.Matrix;
+import util.linalg.RectangularMatrix;
+
+/**
+ * A benchmark of an lu decomposition of a random square matrix,
+ * the size is the number of rows and columns.
+ * @version 1.0
+ */
+public class LUDecompositionBenchmark extends Benchmark {
+
+    /**
+     * The matrix to decompose
+     */
+    private Matrix a;
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        a = RectangularMatrix.random(size);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        return new LUDecomposition(a).determinant();
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 64, 256, 512 };
+    }
+
+}
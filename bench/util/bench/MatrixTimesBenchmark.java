@@ -0,0 +1,46 @@
+package util.bench;
+
+import shared.bench.Benchmark;
+import util.linalg.Matrix;
+import util.linalg.RectangularMatrix;
+
+/**
+ * A benchmark of multiplying two square rectangular matrices,
+ * the size is the number of rows and columns.
+ * @version 1.0
+ */
+public class MatrixTimesBenchmark extends Benchmark {
+
+    /**
+     * The left operand
+     */
+    private Matrix a;
+
+    /**
+     * The right operand
+     */
+    private Matrix b;
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        a = RectangularMatrix.random(size);
+        b = RectangularMatrix.random(size);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        return a.times(b).get(0, 0);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 64, 256, 512 };
+    }
+
+}
@@ -0,0 +1,42 @@
+package util.bench;
+
+import shared.bench.Benchmark;
+import util.linalg.SymmetricEigenvalueDecomposition;
+import util.linalg.Matrix;
+import util.linalg.RectangularMatrix;
+
+/**
+ * A benchmark of a symmetric eigenvalue decomposition of a random symmetric matrix,
+ * the size is the number of rows and columns.
+ * @version 1.0
+ */
+public class SymmetricEigenvalueDecompositionBenchmark extends Benchmark {
+
+    /**
+     * The matrix to decompose
+     */
+    private Matrix a;
+
+    /**
+     * @see shared.bench.Benchmark#setUp(int)
+     */
+    public void setUp(int size) {
+        Matrix r = RectangularMatrix.random(size);
+        a = r.plus(r.transpose());
+    }
+
+    /**
+     * @see shared.bench.Benchmark#run()
+     */
+    public double run() {
+        return new SymmetricEigenvalueDecomposition(a).getD().get(0, 0);
+    }
+
+    /**
+     * @see shared.bench.Benchmark#getSizes()
+     */
+    public int[] getSizes() {
+        return new int[] { 64, 256, 512 };
+    }
+
+}
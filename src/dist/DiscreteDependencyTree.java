@@ -1,13 +1,13 @@
 package dist;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import util.linalg.DenseVector;
-import util.graph.DFSTree;
-import util.graph.Graph;
-import util.graph.KruskalsMST;
 import util.graph.Node;
+import util.graph.PrimsMST;
 import util.graph.Tree;
-import util.graph.WeightedEdge;
 
 import shared.DataSet;
 import shared.DataSetDescription;
@@ -19,7 +19,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class DiscreteDependencyTree extends AbstractDistribution {   
+public class DiscreteDependencyTree extends AbstractDistribution implements RandomSampler {   
     /**
      * The dependency tree root
      */
@@ -40,6 +40,54 @@ public class DiscreteDependencyTree extends AbstractDistribution {
      */
     private DataSetDescription description;
     
+    /**
+     * The pool to calculate mutual information on, or null
+     */
+    private transient ForkJoinPool pool;
+    
+    /**
+     * The column major copy of the last data set,
+     * columns[i][k] is the value of x_i in sample k
+     */
+    private transient int[][] columns;
+    
+    /**
+     * The weights of the samples in the last data set
+     */
+    private transient double[] weights;
+    
+    /**
+     * The mutual information buffer
+     */
+    private transient double[][] mutualI;
+    
+    /**
+     * The variables in an order that puts every parent before its children
+     */
+    private int[] order;
+    
+    /**
+     * The parent of each variable, -1 for the root
+     */
+    private int[] parents;
+    
+    /**
+     * The range of each variable
+     */
+    private int[] ranges;
+    
+    /**
+     * Where each variable's table starts in the cummulatives
+     */
+    private int[] offsets;
+    
+    /**
+     * The conditional cummulative distributions of every variable,
+     * the probability that x_v <= b given its parent is a
+     * is at offsets[v] + a * ranges[v] + b
+     */
+    private double[] cummulatives;
+    
     /**
      * Make a new discrete dependency tree distribution
      * @param m the small positive value to add when making the tree
@@ -63,6 +111,15 @@ public class DiscreteDependencyTree extends AbstractDistribution {
         description.setMaxVector(max);
     }
 
+    /**
+     * Set the pool used to calculate the pairwise mutual
+     * information during estimation
+     * @param pool the pool, or null to calculate on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * @see dist.Distribution#probabilityOf(shared.Instance)
      */
@@ -74,9 +131,66 @@ public class DiscreteDependencyTree extends AbstractDistribution {
      * @see dist.Distribution#generateRandom(shared.Instance)
      */
     public Instance sample(Instance ignored) {
-        Instance i = new Instance(new DenseVector(dt.getNodeCount()));
-        root.generateRandom(i);
-        return i;
+        return sample(ignored, random);
+    }
+
+    /**
+     * @see dist.RandomSampler#sample(shared.Instance, java.util.Random)
+     */
+    public Instance sample(Instance ignored, Random random) {
+        double[] values = new double[order.length];
+        for (int k = 0; k < order.length; k++) {
+            int v = order[k];
+            int a = parents[v] == -1 ? 0 : (int) values[parents[v]];
+            values[v] = sample(v, a, random);
+        }
+        return new Instance(values);
+    }
+    
+    /**
+     * Draw many samples at once into a preallocated buffer,
+     * without allocating anything per sample
+     * @param count the number of samples to draw
+     * @param random the random number generator to draw from
+     * @param buffer the buffer to fill, sample s is stored in
+     * buffer[s * n] through buffer[s * n + n - 1] where n is
+     * the number of variables
+     */
+    public void sample(int count, Random random, int[] buffer) {
+        int n = order.length;
+        for (int s = 0, base = 0; s < count; s++, base += n) {
+            for (int k = 0; k < n; k++) {
+                int v = order[k];
+                int a = parents[v] == -1 ? 0 : buffer[base + parents[v]];
+                buffer[base + v] = sample(v, a, random);
+            }
+        }
+    }
+    
+    /**
+     * Sample a single variable given its parent's value
+     * @param v the variable
+     * @param a the parent's value, 0 for the root
+     * @param random the random number generator to draw from
+     * @return the value
+     */
+    private int sample(int v, int a, Random random) {
+        int row = offsets[v] + a * ranges[v];
+        int last = ranges[v] - 1;
+        double rand = random.nextDouble();
+        int b = 0;
+        while (b < last && cummulatives[row + b] < rand) {
+            b++;
+        }
+        return b;
+    }
+    
+    /**
+     * Get the number of variables
+     * @return the number of variables
+     */
+    public int getVariableCount() {
+        return order.length;
     }
 
     /**
@@ -98,40 +212,59 @@ public class DiscreteDependencyTree extends AbstractDistribution {
             observations.setDescription(new DataSetDescription(observations));
         }
         double[][] mutualI = calculateMutualInformation(observations);
-        // construct the graph
-        Tree rg = buildDirectedMST(observations, mutualI);
+        // find the maximum spanning tree of the mutual information
+        PrimsMST mst = new PrimsMST(true);
+        int[] parents = mst.transform(mutualI, 0);
         // make the dependency tree
         dt = new Tree();
-        root = new DiscreteDependencyTreeRootNode(observations, rg.getRoot(), m, dt);
+        root = new DiscreteDependencyTreeRootNode(observations, 0,
+            PrimsMST.children(parents), m, dt);
         dt.setRoot(root);
-        
+        compile(observations.getDescription(), mst.getOrder(), parents);
     }
 
     /**
-     * Build the directed mst from the mutual information
-     * and ranges
-     * @param ranges the ranges
-     * @param mutualI the mutual information values
-     * @return the directed mst
+     * Flatten the tree into a parent array and contiguous
+     * conditional cummulative tables for fast sampling
+     * @param dsd the description of the data
+     * @param order the variables with every parent before its children
+     * @param parents the parent array
      */
-    private Tree buildDirectedMST(DataSet observations, double[][] mutualI) {
-        Graph g = new Graph();
-        for (int i = 0; i < observations.get(0).size(); i++) {
-            Node n = new Node(i);
-            g.addNode(n);
+    private void compile(DataSetDescription dsd, int[] order, int[] parents) {
+        int n = order.length;
+        int[] ranges = new int[n];
+        int[] offsets = new int[n];
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            ranges[v] = dsd.getDiscreteRange(v);
+            offsets[v] = size;
+            size += (parents[v] == -1 ? 1 : dsd.getDiscreteRange(parents[v])) * ranges[v];
         }
-        for (int i = 0; i < observations.get(0).size(); i++) {
-            for (int j = 0; j < i; j++) {
-                Node a = g.getNode(i);
-                Node b = g.getNode(j);
-                a.connect(b, new WeightedEdge(-mutualI[i][j]));
+        double[] cummulatives = new double[size];
+        for (int i = 0; i < dt.getNodeCount(); i++) {
+            Node node = dt.getNode(i);
+            int v = node.getLabel();
+            double[][] probabilities;
+            if (node instanceof DiscreteDependencyTreeRootNode) {
+                probabilities = new double[][] {
+                    ((DiscreteDependencyTreeRootNode) node).getProbabilities() };
+            } else {
+                probabilities = ((DiscreteDependencyTreeNode) node).getProbabilities();
+            }
+            for (int a = 0; a < probabilities.length; a++) {
+                int row = offsets[v] + a * ranges[v];
+                double sum = 0;
+                for (int b = 0; b < ranges[v]; b++) {
+                    sum += probabilities[a][b];
+                    cummulatives[row + b] = sum;
+                }
             }
         }
-        // find the mst
-        g = new KruskalsMST().transform(g);
-        // direct it
-        Tree rg = (Tree) new DFSTree().transform(g);
-        return rg;
+        this.order = order;
+        this.parents = parents;
+        this.ranges = ranges;
+        this.offsets = offsets;
+        this.cummulatives = cummulatives;
     }
 
     /**
@@ -142,19 +275,40 @@ public class DiscreteDependencyTree extends AbstractDistribution {
      */
     private double[][] calculateMutualInformation(DataSet observations) {
         DataSetDescription dsd = observations.getDescription();
-        // probs[i][j] is the probability that x_i = j
-        double[][] probs = new double[observations.get(0).size()][];
-        for (int i = 0; i < probs.length; i++) {
-            probs[i] = new double[dsd.getDiscreteRange(i)];
+        int n = observations.get(0).size();
+        int samples = observations.size();
+        int[] ranges = new int[n];
+        int maxRange = 1;
+        for (int i = 0; i < n; i++) {
+            ranges[i] = dsd.getDiscreteRange(i);
+            maxRange = Math.max(maxRange, ranges[i]);
+        }
+        // lay the data out column major, reusing the last iteration's buffers
+        if (columns == null || columns.length != n || columns[0].length != samples) {
+            columns = new int[n][samples];
+            weights = new double[samples];
+            mutualI = new double[n][];
+            for (int i = 0; i < n; i++) {
+                mutualI[i] = new double[i];
+            }
         }
         double weightSum = 0;
-        // fill in probs
-        for (int i = 0; i < observations.size(); i++) {
-            for (int j = 0; j < observations.get(i).size(); j++) {
-                probs[j][observations.get(i).getDiscrete(j)] +=
-                    observations.get(i).getWeight();
+        for (int k = 0; k < samples; k++) {
+            Instance instance = observations.get(k);
+            for (int j = 0; j < n; j++) {
+                columns[j][k] = instance.getDiscrete(j);
+            }
+            weights[k] = instance.getWeight();
+            weightSum += weights[k];
+        }
+        // probs[i][j] is the probability that x_i = j
+        double[][] probs = new double[n][];
+        for (int i = 0; i < n; i++) {
+            probs[i] = new double[ranges[i]];
+            int[] column = columns[i];
+            for (int k = 0; k < samples; k++) {
+                probs[i][column[k]] += weights[k];
             }
-            weightSum += observations.get(i).getWeight();
         }
         // normalize
         for (int i = 0; i < probs.length; i++) {
@@ -163,49 +317,105 @@ public class DiscreteDependencyTree extends AbstractDistribution {
             }
         }
         // calculate the entropies of the different variables
-        double[] entropies = new double[observations.get(0).size()];
-        for (int i = 0; i < observations.get(0).size(); i++) {
-            for (int j = 0; j < dsd.getDiscreteRange(i); j++) {
+        double[] entropies = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < ranges[i]; j++) {
                 if (probs[i][j] != 0) {
                     entropies[i] -= probs[i][j] * Math.log(probs[i][j]);
                 }
             }
         }
         // calculate the mutual information between all variables
-        double[][] mutualI = new double[observations.get(0).size()][];
-        for (int i = 0; i < mutualI.length; i++) {
-            mutualI[i] = new double[i];
-            for (int j = 0; j < i; j++) {
-                // the joint probabilities
-                // joints[a][b] is the probability that x_i = a && x_j = b
-                double[][] joints = new double[dsd.getDiscreteRange(i)][dsd.getDiscreteRange(j)];
-                // fill in the joints
-                for (int k = 0; k < observations.size(); k++) {
-                    Instance instance = observations.get(k);
-                    joints[instance.getDiscrete(i)][instance.getDiscrete(j)] ++;
-                }
-                // normalize
-                for (int k = 0; k < joints.length; k++) {
-                    for (int l = 0; l < joints[k].length; l++) {
-                        joints[k][l] /= weightSum;
+        MutualInformationTask task = new MutualInformationTask(
+            ranges, maxRange, entropies, weightSum, samples, 0, n);
+        if (pool != null && n > 1) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+        return mutualI;
+    }
+
+    /**
+     * A task that fills in rows of the mutual information matrix,
+     * splitting the rows in half until there is only one
+     */
+    private class MutualInformationTask extends RecursiveAction {
+        /** The ranges of the variables */
+        private int[] ranges;
+        /** The largest range */
+        private int maxRange;
+        /** The entropies of the variables */
+        private double[] entropies;
+        /** The total weight */
+        private double weightSum;
+        /** The number of samples */
+        private int samples;
+        /** The starting row inclusive */
+        private int start;
+        /** The ending row exclusive */
+        private int end;
+
+        /**
+         * Make a new mutual information task
+         * @param ranges the ranges of the variables
+         * @param maxRange the largest range
+         * @param entropies the entropies of the variables
+         * @param weightSum the total weight
+         * @param samples the number of samples
+         * @param start the starting row inclusive
+         * @param end the ending row exclusive
+         */
+        public MutualInformationTask(int[] ranges, int maxRange, double[] entropies,
+                double weightSum, int samples, int start, int end) {
+            this.ranges = ranges;
+            this.maxRange = maxRange;
+            this.entropies = entropies;
+            this.weightSum = weightSum;
+            this.samples = samples;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (pool != null && end - start > 1) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new MutualInformationTask(ranges, maxRange, entropies,
+                        weightSum, samples, start, mid),
+                    new MutualInformationTask(ranges, maxRange, entropies,
+                        weightSum, samples, mid, end));
+                return;
+            }
+            // joints[a * range_j + b] is the weight of x_i = a && x_j = b
+            double[] joints = new double[maxRange * maxRange];
+            for (int i = start; i < end; i++) {
+                int[] ci = columns[i];
+                for (int j = 0; j < i; j++) {
+                    int[] cj = columns[j];
+                    int rj = ranges[j];
+                    int size = ranges[i] * rj;
+                    for (int k = 0; k < size; k++) {
+                        joints[k] = 0;
                     }
-                }
-                // calculate the mutual information I(x_i; x_j)
-                // add the entropy of x_i
-                mutualI[i][j] += entropies[i];
-                // and the entropy of x_j
-                mutualI[i][j] += entropies[j];
-                // subtract the joint entropy
-                for (int k = 0; k < joints.length; k++) {
-                    for (int l = 0; l < joints[k].length; l++) {
-                        if (joints[k][l] != 0) {
-                            mutualI[i][j] += joints[k][l] * Math.log(joints[k][l]);
+                    for (int k = 0; k < samples; k++) {
+                        joints[ci[k] * rj + cj[k]] += weights[k];
+                    }
+                    // calculate the mutual information I(x_i; x_j)
+                    // as the entropies of x_i and x_j minus the joint entropy
+                    double mi = entropies[i] + entropies[j];
+                    for (int k = 0; k < size; k++) {
+                        if (joints[k] != 0) {
+                            double joint = joints[k] / weightSum;
+                            mi += joint * Math.log(joint);
                         }
                     }
+                    mutualI[i][j] = mi;
                 }
             }
         }
-        return mutualI;
     }
 
     /**
@@ -35,13 +35,52 @@ public class DiscreteDependencyTreeNode extends Node {
      */
     public DiscreteDependencyTreeNode(DataSet dataSet,
                Node node, int parent, double m, Tree t) {
+        estimate(dataSet, node.getLabel(), parent, m);
+        t.addNode(this);
+        setLabel(node.getLabel());
+        for (int i = 0; i < node.getEdgeCount(); i++) {
+            DiscreteDependencyTreeNode dtc = new DiscreteDependencyTreeNode(
+                dataSet, node.getEdge(i).getOther(node), node.getLabel(), m, t);
+            connectDirected(dtc, new Edge());
+        }
+    }
+    
+    /**
+     * Make a dependency tree node from a children array
+     * @param dataSet the data itself
+     * @param label the index of this node's variable
+     * @param parent the parent node index
+     * @param children children[i] lists the children of variable i
+     * @param m the bayesian estimate parameter
+     * @param t the tree
+     */
+    public DiscreteDependencyTreeNode(DataSet dataSet, int label, int parent,
+               int[][] children, double m, Tree t) {
+        estimate(dataSet, label, parent, m);
+        t.addNode(this);
+        setLabel(label);
+        for (int i = 0; i < children[label].length; i++) {
+            DiscreteDependencyTreeNode dtc = new DiscreteDependencyTreeNode(
+                dataSet, children[label][i], label, children, m, t);
+            connectDirected(dtc, new Edge());
+        }
+    }
+    
+    /**
+     * Estimate the conditional probabilities
+     * @param dataSet the data
+     * @param label the index of this node's variable
+     * @param parent the parent node index
+     * @param m the bayesian estimate parameter
+     */
+    private void estimate(DataSet dataSet, int label, int parent, double m) {
         DataSetDescription dsd = dataSet.getDescription();
         double[][] probabilities = 
-            new double[dsd.getDiscreteRange(parent)][dsd.getDiscreteRange(node.getLabel())];
+            new double[dsd.getDiscreteRange(parent)][dsd.getDiscreteRange(label)];
         double[] sums = new double[dsd.getDiscreteRange(parent)];
         for (int i = 0; i < dataSet.size(); i++) {
             probabilities[dataSet.get(i).getDiscrete(parent)]
-                [dataSet.get(i).getDiscrete(node.getLabel())] += dataSet.get(i).getWeight();
+                [dataSet.get(i).getDiscrete(label)] += dataSet.get(i).getWeight();
             sums[dataSet.get(i).getDiscrete(parent)] += dataSet.get(i).getWeight();
         }
         for (int i = 0; i < probabilities.length; i++) {
@@ -52,13 +91,15 @@ public class DiscreteDependencyTreeNode extends Node {
         }
         this.probabilities = probabilities;
         this.parent = parent;
-        t.addNode(this);
-        setLabel(node.getLabel());
-        for (int i = 0; i < node.getEdgeCount(); i++) {
-            DiscreteDependencyTreeNode dtc = new DiscreteDependencyTreeNode(
-                dataSet, node.getEdge(i).getOther(node), node.getLabel(), m, t);
-            connectDirected(dtc, new Edge());
-        }
+    }
+    
+    /**
+     * Get the conditional probabilities, probabilities[a][b]
+     * is the probability this variable is b given its parent is a
+     * @return the probabilities
+     */
+    double[][] getProbabilities() {
+        return probabilities;
     }
     
     /**
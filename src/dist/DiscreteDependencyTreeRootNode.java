@@ -27,11 +27,48 @@ public class DiscreteDependencyTreeRootNode extends Node {
      * @param data the data itself
      */
     public DiscreteDependencyTreeRootNode(DataSet dataSet, Node node, double m,  Tree t) {
+        estimate(dataSet, node.getLabel(), m);
+        t.addNode(this);
+        setLabel(node.getLabel());
+        for (int i = 0; i < node.getEdgeCount(); i++) {
+            DiscreteDependencyTreeNode dtn = new DiscreteDependencyTreeNode(dataSet,
+                node.getEdge(i).getOther(node), node.getLabel(), m, t);
+            connectDirected(dtn, new Edge());
+        }
+    }
+    
+    /**
+     * Build a dependency tree root from a children array
+     * @param dataSet the data itself
+     * @param label the index of the root variable
+     * @param children children[i] lists the children of variable i
+     * @param m the bayesian estimate parameter
+     * @param t the tree
+     */
+    public DiscreteDependencyTreeRootNode(DataSet dataSet, int label, int[][] children,
+            double m, Tree t) {
+        estimate(dataSet, label, m);
+        t.addNode(this);
+        setLabel(label);
+        for (int i = 0; i < children[label].length; i++) {
+            DiscreteDependencyTreeNode dtn = new DiscreteDependencyTreeNode(dataSet,
+                children[label][i], label, children, m, t);
+            connectDirected(dtn, new Edge());
+        }
+    }
+    
+    /**
+     * Estimate the unconditional probabilities
+     * @param dataSet the data
+     * @param label the index of the root variable
+     * @param m the bayesian estimate parameter
+     */
+    private void estimate(DataSet dataSet, int label, double m) {
         DataSetDescription dsd = dataSet.getDescription();
-        probabilities = new double[dsd.getDiscreteRange(node.getLabel())];
+        probabilities = new double[dsd.getDiscreteRange(label)];
         double weightSum = 0;
         for (int i = 0; i < dataSet.size(); i++) {
-            probabilities[dataSet.get(i).getDiscrete(node.getLabel())]
+            probabilities[dataSet.get(i).getDiscrete(label)]
                 += dataSet.get(i).getWeight();
             weightSum += dataSet.get(i).getWeight();
         }
@@ -39,13 +76,14 @@ public class DiscreteDependencyTreeRootNode extends Node {
             probabilities[i] = (probabilities[i] + m / probabilities.length)
                 / (weightSum + m);
         }
-        t.addNode(this);
-        setLabel(node.getLabel());
-        for (int i = 0; i < node.getEdgeCount(); i++) {
-            DiscreteDependencyTreeNode dtn = new DiscreteDependencyTreeNode(dataSet,
-                node.getEdge(i).getOther(node), node.getLabel(), m, t);
-            connectDirected(dtn, new Edge());
-        }
+    }
+    
+    /**
+     * Get the unconditional probabilities
+     * @return the probabilities
+     */
+    double[] getProbabilities() {
+        return probabilities;
     }
     
     /**
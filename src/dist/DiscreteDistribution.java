@@ -2,6 +2,7 @@ package dist;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Random;
 
 import shared.Copyable;
 import shared.DataSet;
@@ -17,7 +18,7 @@ import util.linalg.Vector;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class DiscreteDistribution extends AbstractDistribution implements Serializable, Copyable {
+public class DiscreteDistribution extends AbstractDistribution implements Serializable, Copyable, RandomSampler {
 	
     /**
      * The array of probabilities
@@ -30,9 +31,10 @@ public class DiscreteDistribution extends AbstractDistribution implements Serial
     private double[] prior;
     
     /**
-     * The cummulatives
+     * The cummulatives, volatile so a sampler on another
+     * thread sees the table filled in once it sees it at all
      */
-    private double[] cummulatives;
+    private volatile double[] cummulatives;
     
     /**
      * The continuity parameter
@@ -105,22 +107,35 @@ public class DiscreteDistribution extends AbstractDistribution implements Serial
      * @return the discrete value
      */
     public Instance sample(Instance ignored) {
+        return sample(ignored, random);
+    }
+
+    /**
+     * @see dist.RandomSampler#sample(shared.Instance, java.util.Random)
+     */
+    public Instance sample(Instance ignored, Random random) {
+        double[] cummulatives = this.cummulatives;
         if (cummulatives == null) {
-            calculateCummulatives();
+            cummulatives = calculateCummulatives();
         }
         double rand = random.nextDouble();
-        return new Instance(ABAGAILArrays.search(cummulatives, rand));  
+        return new Instance(ABAGAILArrays.search(cummulatives, rand));
     }
-    
+
     /**
-     * Recalculate the cummulativies
+     * Recalculate the cummulativies, the array is only
+     * published through the volatile field once it is filled
+     * in so concurrent samplers never see a partial table
+     * @return the cummulatives
      */
-    private void calculateCummulatives() {
-        cummulatives = new double[probabilities.length];
+    private double[] calculateCummulatives() {
+        double[] cummulatives = new double[probabilities.length];
         cummulatives[0] = probabilities[0];
         for (int i = 1; i < cummulatives.length; i++) {
             cummulatives[i] = cummulatives[i-1] + probabilities[i];
         }
+        this.cummulatives = cummulatives;
+        return cummulatives;
     }
     
     /**
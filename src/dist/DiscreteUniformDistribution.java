@@ -1,7 +1,11 @@
 package dist;
 
+import java.util.Random;
+
 import shared.DataSet;
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.IntVector;
 
 /**
  * A distribution of all of the permutations
@@ -9,7 +13,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class DiscreteUniformDistribution extends AbstractDistribution {
+public class DiscreteUniformDistribution extends AbstractDistribution implements RandomSampler {
     /**
      * The ranges of the data
      */
@@ -20,16 +24,41 @@ public class DiscreteUniformDistribution extends AbstractDistribution {
      */
     private double p;
     
+    /**
+     * Whether to sample packed bit or int vectors
+     */
+    private boolean packed;
+    
+    /**
+     * Whether every range is two
+     */
+    private boolean binary;
+    
     /**
      * Make a new discrete permutation distribution
      * @param n the size of the data
      */
     public DiscreteUniformDistribution(int[] n) {
+        this(n, false);
+    }
+    
+    /**
+     * Make a new discrete permutation distribution
+     * @param n the size of the data
+     * @param packed true to sample into a BitVector when every
+     * range is two and an IntVector otherwise, instead of a DenseVector
+     */
+    public DiscreteUniformDistribution(int[] n, boolean packed) {
         this.n = n;
+        this.packed = packed;
         p = n[0];
+        binary = true;
         for (int i = 1; i < n.length; i++) {
             p *= n[i];
         }
+        for (int i = 0; i < n.length; i++) {
+            binary &= n[i] == 2;
+        }
         p = 1 / p;
     }
 
@@ -44,6 +73,27 @@ public class DiscreteUniformDistribution extends AbstractDistribution {
      * @see dist.Distribution#generateRandom(shared.Instance)
      */
     public Instance sample(Instance ignored) {
+        return sample(ignored, random);
+    }
+
+    /**
+     * @see dist.RandomSampler#sample(shared.Instance, java.util.Random)
+     */
+    public Instance sample(Instance ignored, Random random) {
+        if (packed && binary) {
+            long[] words = new long[BitVector.wordCount(n.length)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = random.nextLong();
+            }
+            words[words.length - 1] &= BitVector.lastWordMask(n.length);
+            return new Instance(new BitVector(words, n.length));
+        } else if (packed) {
+            IntVector v = new IntVector(n.length);
+            for (int i = 0; i < n.length; i++) {
+                v.setInt(i, random.nextInt(n[i]));
+            }
+            return new Instance(v);
+        }
         double[] d  = new double[n.length];
         for (int i = 0; i < d.length; i++) {
             d[i] = random.nextInt(n[i]);
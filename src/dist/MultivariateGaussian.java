@@ -54,6 +54,12 @@ public class MultivariateGaussian extends AbstractDistribution  implements Copya
      */
     private boolean debug;
     
+    /**
+     * Each thread's pair of scratch vectors for the mahalanobis
+     * distance, made when first needed
+     */
+    private transient ThreadLocal scratch;
+    
     /**
      * Make a new multivariate gaussian
      * @param mean the mean
@@ -94,10 +100,8 @@ public class MultivariateGaussian extends AbstractDistribution  implements Copya
      * @see dist.Distribution#probabilityOf(shared.Instance)
      */
     public double p(Instance i) {
-        Vector d = i.getData();
-        Vector dMinusMean = d.minus(mean);
         double p = 1/Math.sqrt(Math.pow(2*Math.PI, mean.size())* determinant)
-            * Math.exp(-.5 * dMinusMean.dotProduct(decomposition.solve(dMinusMean)));
+            * Math.exp(-.5 * mahalanobisSquared(i.getData()));
         return p;
     }
     
@@ -107,13 +111,46 @@ public class MultivariateGaussian extends AbstractDistribution  implements Copya
      * @return the log likelihood
      */
     public double logp(Instance i) {
-        Vector d = i.getData();
-        Vector dMinusMean = d.minus(mean);
         double p = Math.log(1/Math.sqrt(Math.pow(2*Math.PI, mean.size())* determinant))
-                - .5 * dMinusMean.dotProduct(decomposition.solve(dMinusMean));
+                - .5 * mahalanobisSquared(i.getData());
         return p;
     }
 
+    /**
+     * Calculate (d - mean)' * inverse(covariance) * (d - mean)
+     * with the calling thread's scratch vectors, so the distribution
+     * can be shared by threads as long as it isn't being estimated
+     * @param d the data
+     * @return the squared mahalanobis distance
+     */
+    private double mahalanobisSquared(Vector d) {
+        DenseVector[] vectors = getScratch();
+        d.minusInto(mean, vectors[0]);
+        decomposition.solveInto(vectors[0], vectors[1]);
+        return vectors[0].dotProduct(vectors[1]);
+    }
+    
+    /**
+     * Get the calling thread's scratch vectors, making them
+     * if it has none yet or the mean has changed size
+     * @return the difference and solution vectors
+     */
+    private DenseVector[] getScratch() {
+        ThreadLocal local = scratch;
+        if (local == null) {
+            // a race here only costs a thread its vectors once
+            local = new ThreadLocal();
+            scratch = local;
+        }
+        DenseVector[] vectors = (DenseVector[]) local.get();
+        if (vectors == null || vectors[0].size() != mean.size()) {
+            vectors = new DenseVector[] {
+                new DenseVector(mean.size()), new DenseVector(mean.size()) };
+            local.set(vectors);
+        }
+        return vectors;
+    }
+
     /**
      * @see dist.Distribution#generateRandom(shared.Instance)
      */
@@ -150,10 +187,11 @@ public class MultivariateGaussian extends AbstractDistribution  implements Copya
         mean.timesEquals(1/weightSum);
         // and covariance
         covarianceMatrix = new RectangularMatrix(mean.size(), mean.size());
+        Vector dMinusMean = new DenseVector(mean.size());
         for (int t = 0; t < observations.size(); t++) {
             Vector d = observations.get(t).getData();
             double weight = observations.get(t).getWeight();
-            Vector dMinusMean = d.minus(mean);
+            d.minusInto(mean, dMinusMean);
             for (int i = 0; i < covarianceMatrix.m(); i++) {
                 for (int j = 0; j < covarianceMatrix.n(); j++) {
                     covarianceMatrix.set(i,j,
@@ -0,0 +1,25 @@
+package dist;
+
+import java.util.Random;
+
+import shared.Instance;
+
+/**
+ * A distribution that can draw samples from a random number
+ * generator supplied by the caller instead of the shared
+ * Distribution.random.  Sampling must be safe from several
+ * threads at once as long as every thread uses its own
+ * generator and the distribution is not being re-estimated.
+ * @version 1.0
+ */
+public interface RandomSampler extends Distribution {
+
+    /**
+     * Generate a random value
+     * @param i the conditional values or null
+     * @param random the random number generator to draw from
+     * @return the value
+     */
+    public abstract Instance sample(Instance i, Random random);
+
+}
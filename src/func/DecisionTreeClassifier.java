@@ -224,6 +224,14 @@ public class DecisionTreeClassifier extends AbstractConditionalDistribution impl
     public DecisionTreeNode getRoot() {
         return root;
     }   
+    
+    /**
+     * Set the root node, to use a tree built before
+     * @param root the new root
+     */
+    public void setRoot(DecisionTreeNode root) {
+        this.root = root;
+    }
 
     /**
      * Get the split evaluator for the stump
@@ -1,5 +1,8 @@
 package func;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import dist.AbstractConditionalDistribution;
 import dist.Distribution;
 import dist.UnivariateGaussian;
@@ -7,6 +10,7 @@ import shared.DataSet;
 import shared.Instance;
 import util.linalg.CholeskyFactorization;
 import util.linalg.DenseVector;
+import util.linalg.FlatMatrix;
 import util.linalg.Matrix;
 import util.linalg.RectangularMatrix;
 import util.linalg.Vector;
@@ -19,6 +23,11 @@ import func.svm.LinearKernel;
  * @version 1.0
  */
 public class GaussianProcessRegression extends AbstractConditionalDistribution implements FunctionApproximater {
+    /**
+     * The number of queries predicted together
+     */
+    private static final int BLOCK_SIZE = 64;
+
     /**
      * The kernel
      */
@@ -39,6 +48,10 @@ public class GaussianProcessRegression extends AbstractConditionalDistribution i
      * The a values
      */
     private Vector a;
+    /**
+     * The pool to split batch predictions across, or null
+     */
+    private transient ForkJoinPool pool;
     
     /**
      * Make a new gaussian process regression
@@ -55,20 +68,33 @@ public class GaussianProcessRegression extends AbstractConditionalDistribution i
     public GaussianProcessRegression() {
         this(new LinearKernel(), 1);
     }
+    
+    /**
+     * Set the pool used to split batch predictions across cores
+     * @param pool the pool, or null to predict on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * @see func.FunctionApproximater#estimate(shared.DataSet)
      */
     public void estimate(DataSet set) {
-        // make the kernel matrix
+        // make the kernel matrix, the kernel is symmetric
         c = new RectangularMatrix(set.size(), set.size());
         kernel.setExamples(set);
         for (int i = 0; i < c.m(); i++) {
-            for (int j = 0; j < c.n(); j++) {
-                c.set(i,j, kernel.value(i,j));
+            for (int j = 0; j <= i; j++) {
+                double value = kernel.value(i,j);
+                c.set(i,j, value);
+                c.set(j,i, value);
             }
         }
         // add in the noise
-        c.plusEquals(RectangularMatrix.eye(set.size()).times(noiseSigma * noiseSigma));
+        for (int i = 0; i < c.m(); i++) {
+            c.set(i,i, c.get(i,i) + noiseSigma * noiseSigma);
+        }
         // make the target vector
         Vector t = new DenseVector(set.size());
         for (int i = 0; i < t.size(); i++) {
@@ -90,15 +116,140 @@ public class GaussianProcessRegression extends AbstractConditionalDistribution i
      * @see dist.ConditionalDistribution#distributionFor(shared.Instance)
      */
     public Distribution distributionFor(Instance instance) {
-        Vector k = new DenseVector(c.m());
-        for (int i = 0; i < k.size(); i++) {
-            k.set(i, kernel.value(i, instance));
-        }        
+        double[] values = new double[c.m()];
+        kernel.valueRow(instance, values);
+        Vector k = new DenseVector(values);
         double mean = a.dotProduct(k);
         double sigma = Math.sqrt(
             kernel.value(instance, instance) - k.dotProduct(cf.solve(k)));
         return new UnivariateGaussian(mean, sigma);
     }
-    
+
+    /**
+     * Predict the means for a whole set of instances
+     * @param set the instances
+     * @return the means
+     */
+    public double[] predict(DataSet set) {
+        double[] means = new double[set.size()];
+        predict(set, means, null);
+        return means;
+    }
+
+    /**
+     * Predict the means and variances for a whole set of instances.
+     * The queries are done a block at a time: the kernel values
+     * between the training examples and the block are put in
+     * a matrix, and one triangular solve handles the whole block.
+     * @param set the instances
+     * @param means the array to store the means in
+     * @param variances the array to store the variances in,
+     * or null if they aren't needed
+     */
+    public void predict(DataSet set, double[] means, double[] variances) {
+        int blocks = (set.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (pool == null || blocks <= 1) {
+            for (int i = 0; i < blocks; i++) {
+                predict(set, means, variances, i);
+            }
+        } else {
+            pool.invoke(new PredictTask(set, means, variances, 0, blocks));
+        }
+    }
+
+    /**
+     * Predict the means and variances for a block of instances
+     * @param set the instances
+     * @param means the array to store the means in
+     * @param variances the array to store the variances in, or null
+     * @param block the block of instances
+     */
+    private void predict(DataSet set, double[] means, double[] variances, int block) {
+        int start = block * BLOCK_SIZE;
+        int end = Math.min(set.size(), start + BLOCK_SIZE);
+        int n = c.m();
+        int q = end - start;
+        // row i holds the kernel between example i and each query
+        double[] k = new double[n * q];
+        double[] column = new double[n];
+        for (int j = 0; j < q; j++) {
+            kernel.valueRow(set.get(start + j), column);
+            for (int i = 0; i < n; i++) {
+                k[i * q + j] = column[i];
+            }
+        }
+        double[] weights = ((DenseVector) a).getData();
+        for (int j = 0; j < q; j++) {
+            means[start + j] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            double ai = weights[i];
+            for (int j = 0; j < q; j++) {
+                means[start + j] += ai * k[i * q + j];
+            }
+        }
+        if (variances == null) {
+            return;
+        }
+        // k' C^-1 k is the squared length of L^-1 k
+        cf.solveLowerInto(new FlatMatrix(k, n, q));
+        for (int j = 0; j < q; j++) {
+            Instance instance = set.get(start + j);
+            variances[start + j] = kernel.value(instance, instance);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < q; j++) {
+                double v = k[i * q + j];
+                variances[start + j] -= v * v;
+            }
+        }
+    }
+
+    /**
+     * A task that predicts a range of blocks of
+     * instances, splitting it in half until it is a single block
+     */
+    private class PredictTask extends RecursiveAction {
+        /** The instances */
+        private DataSet set;
+        /** The means */
+        private double[] means;
+        /** The variances, or null */
+        private double[] variances;
+        /** The first block inclusive */
+        private int start;
+        /** The last block exclusive */
+        private int end;
+
+        /**
+         * Make a new predict task
+         * @param set the instances
+         * @param means the means
+         * @param variances the variances, or null
+         * @param start the first block inclusive
+         * @param end the last block exclusive
+         */
+        public PredictTask(DataSet set, double[] means, double[] variances,
+                int start, int end) {
+            this.set = set;
+            this.means = means;
+            this.variances = variances;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start == 1) {
+                predict(set, means, variances, start);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new PredictTask(set, means, variances, start, mid),
+                new PredictTask(set, means, variances, mid, end));
+        }
+    }
 
 }
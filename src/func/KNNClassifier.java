@@ -46,6 +46,11 @@ public class KNNClassifier extends AbstractConditionalDistribution implements Fu
      */
     private KDTree tree;
     
+    /**
+     * The examples in the tree
+     */
+    private DataSet examples;
+    
     /**
      * Make a new knn classifier
      */
@@ -103,6 +108,7 @@ public class KNNClassifier extends AbstractConditionalDistribution implements Fu
         }
         classRange = examples.getDescription().getLabelDescription().getDiscreteRange();
         tree = new KDTree(examples, distanceMeasure);
+        this.examples = examples;
     }
     
     /**
@@ -173,6 +179,22 @@ public class KNNClassifier extends AbstractConditionalDistribution implements Fu
     public int getK() {
         return k;
     }
+    
+    /**
+     * Get the range limit for the neighbors
+     * @return the range, or zero for no limit
+     */
+    public double getRange() {
+        return range;
+    }
+    
+    /**
+     * Get the examples the classifier was estimated from
+     * @return the examples
+     */
+    public DataSet getExamples() {
+        return examples;
+    }
 
     /**
      * Does it weight by distance
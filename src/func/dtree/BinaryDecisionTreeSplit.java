@@ -48,6 +48,22 @@ public class BinaryDecisionTreeSplit extends DecisionTreeSplit {
         }
     }
     
+    /**
+     * Get the attribute split on
+     * @return the attribute split on
+     */
+    public int getAttribute() {
+        return attribute;
+    }
+    
+    /**
+     * Get the value split on
+     * @return the value split on
+     */
+    public int getValue() {
+        return value;
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
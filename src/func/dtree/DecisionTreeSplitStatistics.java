@@ -36,6 +36,21 @@ public class DecisionTreeSplitStatistics {
      */
     private double[] branchProbabilities;
     
+    /**
+     * Make statistics from values calculated before
+     * @param instanceCounts the instance counts for each branch
+     * @param classProbabilities the class probabilities
+     * @param conditionalClassProbabilities the class probabilities in each branch
+     * @param branchProbabilities the branch probabilities
+     */
+    public DecisionTreeSplitStatistics(int[] instanceCounts, double[] classProbabilities,
+            double[][] conditionalClassProbabilities, double[] branchProbabilities) {
+        this.instanceCounts = instanceCounts;
+        this.classProbabilities = classProbabilities;
+        this.conditionalClassProbabilities = conditionalClassProbabilities;
+        this.branchProbabilities = branchProbabilities;
+    }
+    
     /**
      * Calculate statistics from the given split and instances
      * @param split the split
@@ -43,6 +43,22 @@ public class StandardDecisionTreeSplit extends DecisionTreeSplit {
         return data.getDiscrete(attribute);
     }
     
+    /**
+     * Get the attribute split on
+     * @return the attribute split on
+     */
+    public int getAttribute() {
+        return attribute;
+    }
+    
+    /**
+     * Get the range of the attribute
+     * @return the range of the attribute
+     */
+    public int getAttributeRange() {
+        return attributeRange;
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
@@ -37,6 +37,14 @@ public abstract class NeuralNetwork implements Serializable {
      * @return all of the weights in the network
      */
     public abstract List getLinks();
+
+    /**
+     * Get the number of weights in the network
+     * @return the number of weights
+     */
+    public int getWeightCount() {
+        return getLinks().size();
+    }
     
     /**
      * Get link values
@@ -0,0 +1,252 @@
+package func.nn.backprop;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import shared.DataSet;
+import shared.GradientErrorMeasure;
+import shared.Instance;
+import util.ABAGAILArrays;
+import util.linalg.DenseVector;
+import func.nn.NetworkTrainer;
+import func.nn.dense.DenseNetwork;
+
+/**
+ * A mini batch back propagation trainer for dense networks.
+ * Each batch is split into shards that are run on a fork join
+ * pool, each shard with its own replica of the network and its own
+ * gradient accumulator.  The shard gradients are summed in a fixed
+ * order, so results do not depend on thread scheduling, and then
+ * applied with a weight update rule just like the batch trainer.
+ * @version 1.0
+ */
+public class MiniBatchBackPropagationTrainer extends NetworkTrainer {
+
+    /**
+     * The weight update rule to use
+     */
+    private WeightUpdateRule rule;
+
+    /**
+     * The number of patterns in a batch
+     */
+    private int batchSize;
+
+    /**
+     * The pool to run on
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The links holding the update rule state, one per weight
+     */
+    private BackPropagationLink[] links;
+
+    /**
+     * The shards
+     */
+    private Shard[] shards;
+
+    /**
+     * The order to visit the patterns in
+     */
+    private int[] order;
+
+    /**
+     * Whether to visit the patterns in a random order each epoch
+     */
+    private boolean shuffle = true;
+
+    /**
+     * Make a new mini batch back propagation trainer
+     * @param patterns the patterns to train on
+     * @param network the network to train
+     * @param errorMeasure the error measure to use, which
+     * must be safe to call from several threads at once
+     * @param rule the weight update rule
+     * @param batchSize the number of patterns in each batch
+     * @param pool the pool to run on
+     */
+    public MiniBatchBackPropagationTrainer(DataSet patterns,
+            DenseNetwork network,
+            GradientErrorMeasure errorMeasure,
+            WeightUpdateRule rule, int batchSize, ForkJoinPool pool) {
+        super(patterns, network, errorMeasure);
+        this.rule = rule;
+        this.batchSize = Math.max(1, batchSize);
+        this.pool = pool;
+        links = new BackPropagationLink[network.getWeightCount()];
+        for (int i = 0; i < links.length; i++) {
+            links[i] = new BackPropagationLink();
+        }
+        shards = new Shard[Math.max(1, Math.min(pool.getParallelism(), this.batchSize))];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(network.replicate(), links.length);
+        }
+        order = ABAGAILArrays.indices(patterns.size());
+    }
+
+    /**
+     * Make a new mini batch back propagation trainer on the common pool
+     * @param patterns the patterns to train on
+     * @param network the network to train
+     * @param errorMeasure the error measure to use
+     * @param rule the weight update rule
+     * @param batchSize the number of patterns in each batch
+     */
+    public MiniBatchBackPropagationTrainer(DataSet patterns,
+            DenseNetwork network,
+            GradientErrorMeasure errorMeasure,
+            WeightUpdateRule rule, int batchSize) {
+        this(patterns, network, errorMeasure, rule, batchSize,
+            ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Set whether the patterns are visited in a random order each epoch
+     * @param shuffle true to shuffle the patterns
+     */
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    /**
+     * Get the number of patterns in a batch
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Train for one epoch, updating the weights after every batch
+     * @see shared.Trainer#train()
+     */
+    public double train() {
+        DenseNetwork network = (DenseNetwork) getNetwork();
+        double[] weights = network.getWeightArray();
+        DataSet patterns = getDataSet();
+        if (order.length != patterns.size()) {
+            order = ABAGAILArrays.indices(patterns.size());
+        }
+        if (shuffle) {
+            ABAGAILArrays.permute(order);
+        }
+        double error = 0;
+        for (int start = 0; start < order.length; start += batchSize) {
+            int end = Math.min(order.length, start + batchSize);
+            // split the batch evenly between the shards
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].start = start + (end - start) * i / shards.length;
+                shards[i].end = start + (end - start) * (i + 1) / shards.length;
+            }
+            if (shards.length == 1 || end - start < shards.length) {
+                for (int i = 0; i < shards.length; i++) {
+                    shards[i].run();
+                }
+            } else {
+                pool.invoke(new ShardTask(0, shards.length));
+            }
+            for (int i = 0; i < links.length; i++) {
+                double gradient = 0;
+                for (int j = 0; j < shards.length; j++) {
+                    gradient += shards[j].gradient[i];
+                }
+                BackPropagationLink link = links[i];
+                link.setWeight(weights[i]);
+                link.setError(gradient);
+                rule.update(link);
+                weights[i] = link.getWeight();
+                link.clearError();
+            }
+            for (int j = 0; j < shards.length; j++) {
+                error += shards[j].error;
+            }
+        }
+        return error / patterns.size();
+    }
+
+    /**
+     * A network replica and gradient accumulator
+     * along with the part of the batch it trains on
+     */
+    private class Shard {
+        /** The network replica */
+        private DenseNetwork network;
+        /** The output values of the replica */
+        private Instance output;
+        /** The gradient accumulated over the batch */
+        private double[] gradient;
+        /** The error accumulated over the batch */
+        private double error;
+        /** The starting position in the order inclusive */
+        private int start;
+        /** The ending position in the order exclusive */
+        private int end;
+
+        /**
+         * Make a new shard
+         * @param network the network replica
+         * @param weightCount the number of weights
+         */
+        public Shard(DenseNetwork network, int weightCount) {
+            this.network = network;
+            this.output = new Instance(new DenseVector(network.getOutputArray()));
+            this.gradient = new double[weightCount];
+        }
+
+        /**
+         * Accumulate the gradient and error over this shard's patterns
+         */
+        public void run() {
+            GradientErrorMeasure measure =
+                (GradientErrorMeasure) getErrorMeasure();
+            DataSet patterns = getDataSet();
+            for (int i = 0; i < gradient.length; i++) {
+                gradient[i] = 0;
+            }
+            error = 0;
+            for (int i = start; i < end; i++) {
+                Instance pattern = patterns.get(order[i]);
+                network.setInputValues(pattern.getData());
+                network.run();
+                error += measure.value(output, pattern);
+                network.backpropagate(measure.gradient(output, pattern), gradient);
+            }
+        }
+    }
+
+    /**
+     * A task that runs a range of shards,
+     * splitting it in half until it is a single shard
+     */
+    private class ShardTask extends RecursiveAction {
+        /** The first shard inclusive */
+        private int start;
+        /** The last shard exclusive */
+        private int end;
+
+        /**
+         * Make a new shard task
+         * @param start the first shard inclusive
+         * @param end the last shard exclusive
+         */
+        public ShardTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start == 1) {
+                shards[start].run();
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new ShardTask(start, mid), new ShardTask(mid, end));
+        }
+    }
+
+}
@@ -0,0 +1,515 @@
+package func.nn.dense;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+
+import util.linalg.DenseVector;
+import util.linalg.Vector;
+import func.nn.Link;
+import func.nn.NeuralNetwork;
+import func.nn.activation.DifferentiableActivationFunction;
+
+/**
+ * A multi layer perceptron that stores its weights in one contiguous
+ * array and its activations in per layer arrays, instead of an object
+ * graph of nodes and links.  The weights are laid out exactly like the
+ * links of a network built by the BackPropagationNetworkFactory: layer
+ * by layer, then node by node (including each hidden layer's bias node,
+ * whose incoming weights are never used), then by incoming node with
+ * the bias last.  A weight vector therefore means the same thing to
+ * both kinds of network.
+ * @version 1.0
+ */
+public class DenseNetwork extends NeuralNetwork {
+    /**
+     * The random number generator used to initialize the weights
+     */
+    private static Random random = new Random();
+
+    /**
+     * The number of nodes in each layer, not counting bias nodes
+     */
+    private int[] nodeCounts;
+
+    /**
+     * The hidden layer transfer function
+     */
+    private DifferentiableActivationFunction transfer;
+
+    /**
+     * The output layer transfer function, ignored for soft max outputs
+     */
+    private DifferentiableActivationFunction outputFunction;
+
+    /**
+     * Whether the output layer is a soft max layer
+     */
+    private boolean softMax;
+
+    /**
+     * The weights of every layer
+     */
+    private double[] weights;
+
+    /**
+     * Where each layer's weights start, offsets[l - 1] for layer l
+     */
+    private int[] offsets;
+
+    /**
+     * The activations of each layer, every layer
+     * but the output ends with a bias activation of one
+     */
+    private double[][] activations;
+
+    /**
+     * The weighted input sums of each layer
+     */
+    private double[][] sums;
+
+    /**
+     * The input errors of each layer during back propagation
+     */
+    private double[][] errors;
+
+    /**
+     * Make a new dense network with random weights in [-1, 1)
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the hidden layer transfer function
+     * @param outputFunction the output layer transfer function
+     * @param softMax true to use a soft max output layer
+     */
+    public DenseNetwork(int[] nodeCounts, DifferentiableActivationFunction transfer,
+            DifferentiableActivationFunction outputFunction, boolean softMax) {
+        this(nodeCounts, transfer, outputFunction, softMax,
+            new double[getWeightCount(nodeCounts)]);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextDouble() * 2 - 1;
+        }
+    }
+
+    /**
+     * Make a new dense network that uses the given weight array
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the hidden layer transfer function
+     * @param outputFunction the output layer transfer function
+     * @param softMax true to use a soft max output layer
+     * @param weights the weights, laid out as getWeights returns them
+     */
+    public DenseNetwork(int[] nodeCounts, DifferentiableActivationFunction transfer,
+            DifferentiableActivationFunction outputFunction, boolean softMax,
+            double[] weights) {
+        if (weights.length != getWeightCount(nodeCounts)) {
+            throw new IllegalArgumentException();
+        }
+        this.nodeCounts = nodeCounts;
+        this.transfer = transfer;
+        this.outputFunction = outputFunction;
+        this.softMax = softMax;
+        offsets = new int[nodeCounts.length - 1];
+        int size = 0;
+        for (int l = 1; l < nodeCounts.length; l++) {
+            offsets[l - 1] = size;
+            size += rows(l) * (nodeCounts[l - 1] + 1);
+        }
+        this.weights = weights;
+        allocate();
+    }
+
+    /**
+     * Get the number of weights a network with the given layers has,
+     * which is also the number of links the BackPropagationNetworkFactory
+     * gives a network with those layers
+     * @param nodeCounts the number of nodes in each layer
+     * @return the number of weights
+     * @throws IllegalArgumentException if there are fewer than two
+     * layers, a layer has no nodes or there are too many weights
+     */
+    public static int getWeightCount(int[] nodeCounts) {
+        if (nodeCounts.length < 2) {
+            throw new IllegalArgumentException("A network needs at least two layers");
+        }
+        long size = 0;
+        for (int l = 1; l < nodeCounts.length; l++) {
+            if (nodeCounts[l - 1] < 1 || nodeCounts[l] < 1) {
+                throw new IllegalArgumentException("Every layer needs a node");
+            }
+            long rows = l == nodeCounts.length - 1 ? nodeCounts[l] : nodeCounts[l] + 1L;
+            size += rows * (nodeCounts[l - 1] + 1L);
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many weights");
+            }
+        }
+        return (int) size;
+    }
+
+    /**
+     * Make a replica with the given weights
+     * and its own activation buffers
+     * @param network the network to replicate
+     * @param weights the weights to use
+     */
+    private DenseNetwork(DenseNetwork network, double[] weights) {
+        nodeCounts = network.nodeCounts;
+        transfer = network.transfer;
+        outputFunction = network.outputFunction;
+        softMax = network.softMax;
+        offsets = network.offsets;
+        this.weights = weights;
+        allocate();
+    }
+
+    /**
+     * Allocate the activation buffers
+     */
+    private void allocate() {
+        int layers = nodeCounts.length;
+        activations = new double[layers][];
+        sums = new double[layers][];
+        errors = new double[layers][];
+        for (int l = 0; l < layers; l++) {
+            boolean output = l == layers - 1;
+            activations[l] = new double[output ? nodeCounts[l] : nodeCounts[l] + 1];
+            if (!output) {
+                activations[l][nodeCounts[l]] = 1;
+            }
+            sums[l] = new double[nodeCounts[l]];
+            errors[l] = new double[nodeCounts[l]];
+        }
+    }
+
+    /**
+     * Get the number of weight rows feeding a layer, which
+     * includes the unused row of a hidden layer's bias node
+     * @param l the layer
+     * @return the number of rows
+     */
+    private int rows(int l) {
+        return l == nodeCounts.length - 1 ? nodeCounts[l] : nodeCounts[l] + 1;
+    }
+
+    /**
+     * Make a replica of this network that shares its weights, so that
+     * changes to the weights of one are seen by the other, but that can
+     * be run on a different thread at the same time
+     * @return the replica
+     */
+    public DenseNetwork replicate() {
+        return new DenseNetwork(this, weights);
+    }
+
+    /**
+     * Make a copy of this network with its own weights
+     * and its own activation buffers
+     * @return the copy
+     */
+    public DenseNetwork copy() {
+        return new DenseNetwork(this, weights.clone());
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#setInputValues(util.linalg.Vector)
+     */
+    public void setInputValues(Vector values) {
+        double[] input = activations[0];
+        for (int i = 0; i < nodeCounts[0]; i++) {
+            input[i] = values.get(i);
+        }
+    }
+
+    /**
+     * Set the input values from an array
+     * @param values the values
+     */
+    public void setInputValues(double[] values) {
+        System.arraycopy(values, 0, activations[0], 0, nodeCounts[0]);
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#run()
+     */
+    public void run() {
+        int last = nodeCounts.length - 1;
+        for (int l = 1; l <= last; l++) {
+            double[] in = activations[l - 1];
+            double[] sum = sums[l];
+            double[] out = activations[l];
+            int width = in.length;
+            int row = offsets[l - 1];
+            for (int j = 0; j < nodeCounts[l]; j++, row += width) {
+                double s = 0;
+                for (int i = 0; i < width; i++) {
+                    s += weights[row + i] * in[i];
+                }
+                sum[j] = s;
+            }
+            if (l == last && softMax) {
+                // shift by the largest sum to prevent overflows
+                double shift = sum[0];
+                for (int j = 1; j < sum.length; j++) {
+                    shift = Math.max(shift, sum[j]);
+                }
+                double total = 0;
+                for (int j = 0; j < sum.length; j++) {
+                    out[j] = Math.exp(sum[j] - shift);
+                    total += out[j];
+                }
+                for (int j = 0; j < sum.length; j++) {
+                    out[j] /= total;
+                }
+            } else {
+                DifferentiableActivationFunction f = l == last ? outputFunction : transfer;
+                for (int j = 0; j < sum.length; j++) {
+                    out[j] = f.value(sum[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Back propagate errors on the output values, adding
+     * the gradient of every weight into the given array
+     * @param outputErrors the error gradient of each output
+     * @param gradient the array to add the weight gradients to,
+     * laid out like the weights
+     */
+    public void backpropagate(double[] outputErrors, double[] gradient) {
+        int last = nodeCounts.length - 1;
+        // output nodes pass their error straight through
+        System.arraycopy(outputErrors, 0, errors[last], 0, nodeCounts[last]);
+        for (int l = last; l >= 1; l--) {
+            double[] in = activations[l - 1];
+            double[] error = errors[l];
+            int width = in.length;
+            int row = offsets[l - 1];
+            // the error of each incoming node is the weighted sum of ours
+            double[] previous = l > 1 ? errors[l - 1] : null;
+            if (previous != null) {
+                for (int i = 0; i < previous.length; i++) {
+                    previous[i] = 0;
+                }
+            }
+            for (int j = 0; j < nodeCounts[l]; j++, row += width) {
+                double e = error[j];
+                for (int i = 0; i < width; i++) {
+                    gradient[row + i] += in[i] * e;
+                }
+                if (previous != null) {
+                    for (int i = 0; i < previous.length; i++) {
+                        previous[i] += weights[row + i] * e;
+                    }
+                }
+            }
+            if (previous != null) {
+                double[] sum = sums[l - 1];
+                for (int i = 0; i < previous.length; i++) {
+                    previous[i] *= transfer.derivative(sum[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#getOutputValues()
+     */
+    public Vector getOutputValues() {
+        return new DenseVector(activations[nodeCounts.length - 1].clone());
+    }
+
+    /**
+     * Get the output activations without copying them,
+     * the array is overwritten by the next run
+     * @return the output activations
+     */
+    public double[] getOutputArray() {
+        return activations[nodeCounts.length - 1];
+    }
+
+    /**
+     * Get the index of the largest output
+     * @return the index
+     */
+    public int getDiscreteOutputValue() {
+        double[] out = getOutputArray();
+        int largest = 0;
+        for (int i = 1; i < out.length; i++) {
+            if (out[i] > out[largest]) {
+                largest = i;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Get the binary output value
+     * @return true if the first output is above one half
+     */
+    public boolean getBinaryOutputValue() {
+        return getOutputArray()[0] > .5;
+    }
+
+    /**
+     * Dense networks have no link objects, so this returns views of
+     * the weight array in the same order as getWeights.  Setting or
+     * changing a view's weight changes the network.  The views are
+     * made as they are asked for and only carry weights; they aren't
+     * connected to any nodes, so asking them for node values throws
+     * an UnsupportedOperationException.
+     * @see func.nn.NeuralNetwork#getLinks()
+     */
+    public List getLinks() {
+        return new AbstractList() {
+            public Object get(int i) {
+                if (i < 0 || i >= weights.length) {
+                    throw new IndexOutOfBoundsException("" + i);
+                }
+                return new WeightLink(i);
+            }
+            public int size() {
+                return weights.length;
+            }
+        };
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#getWeightCount()
+     */
+    public int getWeightCount() {
+        return weights.length;
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#getWeights()
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Get the weight array itself, shared with any replicas
+     * @return the weights
+     */
+    public double[] getWeightArray() {
+        return weights;
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#setWeights(double[])
+     */
+    public void setWeights(double[] weights) {
+        System.arraycopy(weights, 0, this.weights, 0, weights.length);
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#setWeights(util.linalg.Vector)
+     */
+    public void setWeights(Vector weights) {
+        for (int i = 0; i < weights.size(); i++) {
+            this.weights[i] = weights.get(i);
+        }
+    }
+
+    /**
+     * Get the number of nodes in each layer, not counting bias nodes
+     * @return the node counts
+     */
+    public int[] getNodeCounts() {
+        return nodeCounts;
+    }
+
+    /**
+     * Get the hidden layer transfer function
+     * @return the transfer function
+     */
+    public DifferentiableActivationFunction getTransferFunction() {
+        return transfer;
+    }
+
+    /**
+     * Get the output layer transfer function
+     * @return the output function
+     */
+    public DifferentiableActivationFunction getOutputFunction() {
+        return outputFunction;
+    }
+
+    /**
+     * Whether the output layer is a soft max
+     * @return true if it is
+     */
+    public boolean isSoftMax() {
+        return softMax;
+    }
+
+    /**
+     * A link that reads and writes one entry of the weight array,
+     * with no nodes at either end
+     */
+    private class WeightLink extends Link {
+        /**
+         * The index of the weight
+         */
+        private int index;
+
+        /**
+         * Make a new weight link
+         * @param index the index of the weight
+         */
+        public WeightLink(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @see func.nn.Link#getWeight()
+         */
+        public double getWeight() {
+            return weights[index];
+        }
+
+        /**
+         * @see func.nn.Link#setWeight(double)
+         */
+        public void setWeight(double d) {
+            weights[index] = d;
+        }
+
+        /**
+         * @see func.nn.Link#changeWeight(double)
+         */
+        public void changeWeight(double delta) {
+            weights[index] += delta;
+        }
+
+        /**
+         * @see func.nn.Link#getInValue()
+         */
+        public double getInValue() {
+            throw new UnsupportedOperationException(
+                "Dense network links only carry weights");
+        }
+
+        /**
+         * @see func.nn.Link#getOutValue()
+         */
+        public double getOutValue() {
+            throw new UnsupportedOperationException(
+                "Dense network links only carry weights");
+        }
+
+        /**
+         * @see func.nn.Link#getWeightedInValue()
+         */
+        public double getWeightedInValue() {
+            return getInValue();
+        }
+
+        /**
+         * @see func.nn.Link#getWeightedOutValue()
+         */
+        public double getWeightedOutValue() {
+            return getOutValue();
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package func.nn.dense;
+
+import func.nn.activation.DifferentiableActivationFunction;
+import func.nn.activation.HyperbolicTangentSigmoid;
+import func.nn.activation.LinearActivationFunction;
+import func.nn.activation.LogisticSigmoid;
+
+/**
+ * A dense multi layer perceptron factory, making networks
+ * that match those of the BackPropagationNetworkFactory
+ * @version 1.0
+ */
+public class DenseNetworkFactory {
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the transfer function
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseNetwork createRegressionNetwork(int[] nodeCounts,
+            DifferentiableActivationFunction transfer) {
+        return new DenseNetwork(nodeCounts, transfer,
+            new LinearActivationFunction(), false);
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseNetwork createRegressionNetwork(int[] nodeCounts) {
+        return createRegressionNetwork(nodeCounts, new HyperbolicTangentSigmoid());
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * with a softmax output layer
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the transfer function
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseNetwork createClassificationNetwork(int[] nodeCounts,
+            DifferentiableActivationFunction transfer) {
+        if (nodeCounts[nodeCounts.length - 1] == 1) {
+            return new DenseNetwork(nodeCounts, transfer,
+                new LogisticSigmoid(), false);
+        } else {
+            return new DenseNetwork(nodeCounts, transfer,
+                new LinearActivationFunction(), true);
+        }
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseNetwork createClassificationNetwork(int[] nodeCounts) {
+        return createClassificationNetwork(nodeCounts, new HyperbolicTangentSigmoid());
+    }
+
+}
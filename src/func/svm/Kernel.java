@@ -2,6 +2,8 @@ package func.svm;
 
 import shared.DataSet;
 import shared.Instance;
+import util.linalg.DenseVector;
+import util.linalg.Vector;
 
 /**
  * A kernel function for a support
@@ -16,13 +18,24 @@ public abstract class Kernel {
      */
     private DataSet examples;
     
+    /**
+     * The examples copied into one row major array,
+     * or null if they aren't all the same size
+     */
+    private double[] exampleData;
+    
+    /**
+     * The number of attributes in each example
+     */
+    private int dimensions;
+    
     /**
      * Create a new support vector machine kernel
      * that uses the given examples
      * @param examples the example
      */
     public Kernel(DataSet examples) {
-        this.examples = examples;
+        setExamples(examples);
     }
     
     /**
@@ -53,6 +66,30 @@ public abstract class Kernel {
         return value(examples.get(i), data);
     }
     
+    /**
+     * Compute the kernel between an example and every
+     * example, out[k] = value(i, k)
+     * @param i the index of the example
+     * @param out the array to store the values in
+     */
+    public void valueRow(int i, double[] out) {
+        for (int k = 0; k < examples.size(); k++) {
+            out[k] = value(i, k);
+        }
+    }
+    
+    /**
+     * Compute the kernel between every stored
+     * example and the given data, out[k] = value(k, data)
+     * @param data the data
+     * @param out the array to store the values in
+     */
+    public void valueRow(Instance data, double[] out) {
+        for (int k = 0; k < examples.size(); k++) {
+            out[k] = value(k, data);
+        }
+    }
+    
     /**
      * Compute the kernel for two data arrays
      * @param a the first data
@@ -78,6 +115,94 @@ public abstract class Kernel {
      */
     public void setExamples(DataSet examples) {
         this.examples = examples;
+        exampleData = null;
+        dimensions = 0;
+        if (examples == null || examples.size() == 0) {
+            return;
+        }
+        // copy the examples into one array for the fast paths
+        int d = examples.get(0).size();
+        double[] flat = new double[examples.size() * d];
+        for (int i = 0; i < examples.size(); i++) {
+            Vector v = examples.get(i).getData();
+            if (v.size() != d) {
+                return;
+            }
+            for (int j = 0; j < d; j++) {
+                flat[i * d + j] = v.get(j);
+            }
+        }
+        exampleData = flat;
+        dimensions = d;
+    }
+    
+    /**
+     * Get the examples copied into one row major array
+     * @return the data, or null if the examples aren't all the same size
+     */
+    protected double[] getExampleData() {
+        return exampleData;
+    }
+    
+    /**
+     * Get the number of attributes in each example
+     * @return the number of attributes
+     */
+    protected int getDimensions() {
+        return dimensions;
+    }
+    
+    /**
+     * Compute the dot product of two stored examples,
+     * only valid when the example data is there
+     * @param i the first example
+     * @param j the second example
+     * @return the dot product
+     */
+    protected double dotProduct(int i, int j) {
+        int ii = i * dimensions, jj = j * dimensions;
+        double result = 0;
+        for (int k = 0; k < dimensions; k++) {
+            result += exampleData[ii + k] * exampleData[jj + k];
+        }
+        return result;
+    }
+    
+    /**
+     * Compute the dot product of a stored example and an array,
+     * only valid when the example data is there
+     * @param i the example
+     * @param data the array
+     * @return the dot product
+     */
+    protected double dotProduct(int i, double[] data) {
+        int ii = i * dimensions;
+        double result = 0;
+        for (int k = 0; k < dimensions; k++) {
+            result += exampleData[ii + k] * data[k];
+        }
+        return result;
+    }
+    
+    /**
+     * Get the data of an instance as an array,
+     * without copying if it is dense
+     * @param data the instance
+     * @return the array, or null if it isn't the size of the examples
+     */
+    protected double[] toArray(Instance data) {
+        Vector v = data.getData();
+        if (v.size() != dimensions) {
+            return null;
+        }
+        if (v instanceof DenseVector) {
+            return ((DenseVector) v).getData();
+        }
+        double[] result = new double[dimensions];
+        for (int k = 0; k < dimensions; k++) {
+            result[k] = v.get(k);
+        }
+        return result;
     }
     
     /**
@@ -86,6 +211,8 @@ public abstract class Kernel {
      */
     public void clear() {
         examples = null;
+        exampleData = null;
+        dimensions = 0;
     }
 
 }
@@ -0,0 +1,272 @@
+package func.svm;
+
+/**
+ * A cache of rows of the kernel matrix over a set of examples,
+ * bounded by a memory budget.  When the cache is full the least
+ * recently used row is thrown out and its array reused.
+ * The diagonal is always kept.
+ * @version 1.0
+ */
+public class KernelCache {
+    /**
+     * The default size of the cache in megabytes
+     */
+    public static final double DEFAULT_SIZE = 100;
+
+    /**
+     * Marks the end of the list of cached rows
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The kernel
+     */
+    private Kernel kernel;
+
+    /**
+     * The number of examples
+     */
+    private int n;
+
+    /**
+     * The most rows that can be cached
+     */
+    private int capacity;
+
+    /**
+     * The number of rows cached
+     */
+    private int count;
+
+    /**
+     * The cached rows, null if not cached
+     */
+    private double[][] rows;
+
+    /**
+     * The kernel value of every example with itself
+     */
+    private double[] diagonal;
+
+    /**
+     * The next less recently used row for each cached row
+     */
+    private int[] next;
+
+    /**
+     * The next more recently used row for each cached row
+     */
+    private int[] previous;
+
+    /**
+     * The most recently used row
+     */
+    private int head = NONE;
+
+    /**
+     * The least recently used row
+     */
+    private int tail = NONE;
+
+    /**
+     * The number of lookups that were found in the cache
+     */
+    private long hits;
+
+    /**
+     * The number of lookups that weren't
+     */
+    private long misses;
+
+    /**
+     * Make a new kernel cache
+     * @param kernel the kernel, with its examples set
+     * @param megabytes the most memory to use for rows in megabytes
+     */
+    public KernelCache(Kernel kernel, double megabytes) {
+        this.kernel = kernel;
+        n = kernel.getExamples().size();
+        long rowBytes = 8L * Math.max(n, 1);
+        long fit = (long) (megabytes * 1024 * 1024) / rowBytes;
+        capacity = (int) Math.max(2, Math.min(n, fit));
+        rows = new double[n][];
+        next = new int[n];
+        previous = new int[n];
+        diagonal = new double[n];
+        for (int i = 0; i < n; i++) {
+            diagonal[i] = kernel.value(i, i);
+        }
+    }
+
+    /**
+     * Make a new kernel cache of the default size
+     * @param kernel the kernel, with its examples set
+     */
+    public KernelCache(Kernel kernel) {
+        this(kernel, DEFAULT_SIZE);
+    }
+
+    /**
+     * Get the kernel value for two examples, from the
+     * cache if either row is there
+     * @param i the first example
+     * @param j the second example
+     * @return the value
+     */
+    public double value(int i, int j) {
+        if (i == j) {
+            hits++;
+            return diagonal[i];
+        }
+        if (rows[i] != null) {
+            hits++;
+            use(i);
+            return rows[i][j];
+        }
+        if (rows[j] != null) {
+            hits++;
+            use(j);
+            return rows[j][i];
+        }
+        misses++;
+        return kernel.value(i, j);
+    }
+
+    /**
+     * Get the kernel value of an example with itself
+     * @param i the example
+     * @return the value
+     */
+    public double getDiagonal(int i) {
+        return diagonal[i];
+    }
+
+    /**
+     * Get a row of the kernel matrix, computing it
+     * and throwing out an old row if it isn't cached
+     * @param i the example
+     * @return the row, which must not be changed
+     */
+    public double[] getRow(int i) {
+        return getRow(i, true);
+    }
+
+    /**
+     * Get a row of the kernel matrix
+     * @param i the example
+     * @param evict whether to throw out an old row to make room,
+     * when false a row is only computed if there is free space
+     * @return the row, which must not be changed, or null if the
+     * row isn't cached and there was no room for it
+     */
+    public double[] getRow(int i, boolean evict) {
+        double[] row = rows[i];
+        if (row != null) {
+            hits++;
+            use(i);
+            return row;
+        }
+        misses++;
+        if (count < capacity) {
+            row = new double[n];
+            count++;
+        } else if (evict) {
+            // reuse the least recently used row
+            int old = tail;
+            remove(old);
+            row = rows[old];
+            rows[old] = null;
+        } else {
+            return null;
+        }
+        kernel.valueRow(i, row);
+        rows[i] = row;
+        addFirst(i);
+        return row;
+    }
+
+    /**
+     * Move a cached row to the front of the list
+     * @param i the row
+     */
+    private void use(int i) {
+        if (head != i) {
+            remove(i);
+            addFirst(i);
+        }
+    }
+
+    /**
+     * Add a row to the front of the list
+     * @param i the row
+     */
+    private void addFirst(int i) {
+        previous[i] = NONE;
+        next[i] = head;
+        if (head != NONE) {
+            previous[head] = i;
+        } else {
+            tail = i;
+        }
+        head = i;
+    }
+
+    /**
+     * Take a row out of the list
+     * @param i the row
+     */
+    private void remove(int i) {
+        if (previous[i] != NONE) {
+            next[previous[i]] = next[i];
+        } else {
+            head = next[i];
+        }
+        if (next[i] != NONE) {
+            previous[next[i]] = previous[i];
+        } else {
+            tail = previous[i];
+        }
+    }
+
+    /**
+     * Get the most rows the cache can hold
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of lookups found in the cache
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups not found in the cache
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the fraction of lookups found in the cache
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return "Kernel cache " + count + "/" + capacity + " rows, "
+            + hits + " hits, " + misses + " misses";
+    }
+
+}
@@ -16,6 +16,54 @@ public class LinearKernel extends Kernel {
         return a.getData().dotProduct(b.getData());
     }
     
+    /**
+     * @see func.svm.Kernel#value(int, int)
+     */
+    public double value(int i, int j) {
+        if (getExampleData() == null) {
+            return super.value(i, j);
+        }
+        return dotProduct(i, j);
+    }
+    
+    /**
+     * @see func.svm.Kernel#value(int, shared.Instance)
+     */
+    public double value(int i, Instance data) {
+        double[] b = getExampleData() == null ? null : toArray(data);
+        if (b == null) {
+            return super.value(i, data);
+        }
+        return dotProduct(i, b);
+    }
+    
+    /**
+     * @see func.svm.Kernel#valueRow(int, double[])
+     */
+    public void valueRow(int i, double[] out) {
+        if (getExampleData() == null) {
+            super.valueRow(i, out);
+            return;
+        }
+        for (int k = 0; k < getExamples().size(); k++) {
+            out[k] = dotProduct(i, k);
+        }
+    }
+    
+    /**
+     * @see func.svm.Kernel#valueRow(shared.Instance, double[])
+     */
+    public void valueRow(Instance data, double[] out) {
+        double[] b = getExampleData() == null ? null : toArray(data);
+        if (b == null) {
+            super.valueRow(data, out);
+            return;
+        }
+        for (int k = 0; k < getExamples().size(); k++) {
+            out[k] = dotProduct(k, b);
+        }
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
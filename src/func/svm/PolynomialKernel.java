@@ -64,6 +64,30 @@ public class PolynomialKernel extends Kernel {
             + additiveConstant, exponent);
     }
     
+    /**
+     * Get the weight of the dot product
+     * @return the weight of the dot product
+     */
+    public double getDotProductWeight() {
+        return dotProductWeight;
+    }
+    
+    /**
+     * Get the additive constant
+     * @return the additive constant
+     */
+    public double getAdditiveConstant() {
+        return additiveConstant;
+    }
+    
+    /**
+     * Get the exponent
+     * @return the exponent
+     */
+    public int getExponent() {
+        return exponent;
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
@@ -1,5 +1,6 @@
 package func.svm;
 
+import shared.DataSet;
 import shared.Instance;
 import util.linalg.Vector;
 
@@ -20,6 +21,11 @@ public class RBFKernel extends Kernel {
      */
     private double gamma;
     
+    /**
+     * The squared length of each example, or null
+     */
+    private double[] squaredNorms;
+    
     /**
      * Make a new radial basis function kernel
      * @param sigma the sigma value
@@ -41,7 +47,105 @@ public class RBFKernel extends Kernel {
             - 2*va.dotProduct(vb);
         return Math.exp(gamma * difference);
     }
+    
+    /**
+     * Also works out the squared length of every example
+     * @see func.svm.Kernel#setExamples(shared.DataSet)
+     */
+    public void setExamples(DataSet examples) {
+        super.setExamples(examples);
+        squaredNorms = null;
+        if (getExampleData() != null) {
+            squaredNorms = new double[examples.size()];
+            for (int i = 0; i < squaredNorms.length; i++) {
+                squaredNorms[i] = dotProduct(i, i);
+            }
+        }
+    }
+    
+    /**
+     * @see func.svm.Kernel#clear()
+     */
+    public void clear() {
+        super.clear();
+        squaredNorms = null;
+    }
+    
+    /**
+     * @see func.svm.Kernel#value(int, int)
+     */
+    public double value(int i, int j) {
+        if (squaredNorms == null) {
+            return super.value(i, j);
+        }
+        return Math.exp(gamma * (squaredNorms[i] + squaredNorms[j]
+            - 2*dotProduct(i, j)));
+    }
+    
+    /**
+     * @see func.svm.Kernel#value(int, shared.Instance)
+     */
+    public double value(int i, Instance data) {
+        double[] b = squaredNorms == null ? null : toArray(data);
+        if (b == null) {
+            return super.value(i, data);
+        }
+        return Math.exp(gamma * (squaredNorms[i] + squaredNorm(b)
+            - 2*dotProduct(i, b)));
+    }
+    
+    /**
+     * @see func.svm.Kernel#valueRow(int, double[])
+     */
+    public void valueRow(int i, double[] out) {
+        if (squaredNorms == null) {
+            super.valueRow(i, out);
+            return;
+        }
+        double normi = squaredNorms[i];
+        for (int k = 0; k < getExamples().size(); k++) {
+            out[k] = Math.exp(gamma * (normi + squaredNorms[k]
+                - 2*dotProduct(i, k)));
+        }
+    }
+    
+    /**
+     * @see func.svm.Kernel#valueRow(shared.Instance, double[])
+     */
+    public void valueRow(Instance data, double[] out) {
+        double[] b = squaredNorms == null ? null : toArray(data);
+        if (b == null) {
+            super.valueRow(data, out);
+            return;
+        }
+        double norm = squaredNorm(b);
+        for (int k = 0; k < getExamples().size(); k++) {
+            out[k] = Math.exp(gamma * (squaredNorms[k] + norm
+                - 2*dotProduct(k, b)));
+        }
+    }
+    
+    /**
+     * Compute the squared length of an array
+     * @param data the array
+     * @return the squared length
+     */
+    private static double squaredNorm(double[] data) {
+        double result = 0;
+        for (int k = 0; k < data.length; k++) {
+            result += data[k] * data[k];
+        }
+        return result;
+    }
 
+    /**
+     * Get the sigma value
+     * @return the sigma value
+     */
+    public double getSigma() {
+        return sigma;
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
@@ -1,5 +1,6 @@
 package func.svm;
 
+import util.ABAGAILArrays;
 import util.linalg.DenseVector;
 import util.linalg.Vector;
 import shared.DataSet;
@@ -27,6 +28,22 @@ public class SequentialMinimalOptimization implements Trainer {
      */
     private static final double ZERO = 1e-8;
     
+    /**
+     * The largest violation of the optimality conditions
+     * allowed when using second order working set selection
+     */
+    private static final double GAP_TOLERANCE = 1e-3;
+    
+    /**
+     * Used in place of a non positive second derivative
+     */
+    private static final double TAU = 1e-12;
+    
+    /**
+     * The most steps between shrinking the active set
+     */
+    private static final int SHRINK_INTERVAL = 1000;
+    
     
     /**
      * The number of iterations
@@ -44,6 +61,11 @@ public class SequentialMinimalOptimization implements Trainer {
      */
     private Kernel kernel;
     
+    /**
+     * The cache of kernel rows
+     */
+    private KernelCache cache;
+    
     /**
      * The slack value, all alpha weights
      * must be between 0 and c inclusive
@@ -73,14 +95,26 @@ public class SequentialMinimalOptimization implements Trainer {
      */
     private Vector w;
     
+    /**
+     * Whether to use second order working set selection
+     */
+    private boolean secondOrder;
+    
+    /**
+     * Whether to shrink the active set when
+     * using second order working set selection
+     */
+    private boolean shrinking = true;
+    
     /**
      * Make a new SMO trainer
      * @param examples the instances to train on
      * @param kernel the kernel to use
      * @param c the slack value
+     * @param cacheSize the size of the kernel cache in megabytes
      */
     public SequentialMinimalOptimization(DataSet examples,
-            Kernel kernel, double c) {
+            Kernel kernel, double c, double cacheSize) {
         this.c = c;
         this.kernel = kernel;
         this.examples = examples;
@@ -94,17 +128,51 @@ public class SequentialMinimalOptimization implements Trainer {
         // set up the kernel
         kernel.clear();
         kernel.setExamples(examples);
+        cache = new KernelCache(kernel, cacheSize);
         // set up the weight vector (if linear)
         if (kernel instanceof LinearKernel) {
             w = new DenseVector(
                 new double[examples.get(0).size()]);
         }
     }
+    
+    /**
+     * Make a new SMO trainer with the default kernel cache size
+     * @param examples the instances to train on
+     * @param kernel the kernel to use
+     * @param c the slack value
+     */
+    public SequentialMinimalOptimization(DataSet examples,
+            Kernel kernel, double c) {
+        this(examples, kernel, c, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Set whether to train with second order working set selection
+     * instead of Platt's heuristics, this usually takes far fewer
+     * steps and kernel evaluations on large problems
+     * @param secondOrder true to use second order selection
+     */
+    public void setSecondOrder(boolean secondOrder) {
+        this.secondOrder = secondOrder;
+    }
+    
+    /**
+     * Set whether to shrink the active set of examples with
+     * second order working set selection
+     * @param shrinking true to shrink
+     */
+    public void setShrinking(boolean shrinking) {
+        this.shrinking = shrinking;
+    }
 
     /**
      * @see shared.Trainer#train()
      */
     public double train() {
+        if (secondOrder) {
+            return trainSecondOrder();
+        }
         // number of alpha values changed this iteration
         int numChanged = 0;
         // whether or not to loop through all examples
@@ -142,6 +210,272 @@ public class SequentialMinimalOptimization implements Trainer {
         return 0;
     }
     
+    /**
+     * Train by repeatedly optimizing the pair of examples chosen with
+     * second order information, as in Fan, Chen and Lin (2005).
+     * Here the error cache is kept for every active example without
+     * the threshold, which is only worked out once training is done.
+     * Examples stuck at a bound are shrunk out of the active set, and
+     * brought back to check the result before stopping.  Each step
+     * counts as an iteration.
+     * @return zero
+     */
+    private double trainSecondOrder() {
+        int n = a.length;
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = examples.get(k).getLabel().getPlusMinus();
+        }
+        int[] active = ABAGAILArrays.indices(n);
+        int activeSize = n;
+        boolean unshrunk = false;
+        reconstructErrors(y, active, 0);
+        int counter = Math.min(n, SHRINK_INTERVAL) + 1;
+        // the same limit on steps as libsvm, against cycling
+        long maxSteps = Math.max(10000000L, 100L * n);
+        for (long steps = 0; steps < maxSteps; steps++) {
+            if (shrinking && --counter == 0) {
+                counter = Math.min(n, SHRINK_INTERVAL);
+                // find the current violations over the active set
+                double up = Double.NEGATIVE_INFINITY;
+                double low = Double.NEGATIVE_INFINITY;
+                for (int p = 0; p < activeSize; p++) {
+                    int t = active[p];
+                    if (y[t] > 0 ? a[t] < c : a[t] > 0) {
+                        up = Math.max(up, -e[t]);
+                    }
+                    if (y[t] > 0 ? a[t] > 0 : a[t] < c) {
+                        low = Math.max(low, e[t]);
+                    }
+                }
+                // close to done, check everything once more
+                // with accurate errors before shrinking further
+                if (!unshrunk && up + low <= GAP_TOLERANCE * 10) {
+                    unshrunk = true;
+                    reconstructErrors(y, active, activeSize);
+                    activeSize = n;
+                }
+                for (int p = 0; p < activeSize; p++) {
+                    int t = active[p];
+                    if (isShrinkable(t, y[t], up, low)) {
+                        activeSize--;
+                        active[p] = active[activeSize];
+                        active[activeSize] = t;
+                        p--;
+                    }
+                }
+            }
+            // i has the largest violation going up
+            int i = -1;
+            double up = Double.NEGATIVE_INFINITY;
+            for (int p = 0; p < activeSize; p++) {
+                int t = active[p];
+                if ((y[t] > 0 ? a[t] < c : a[t] > 0) && -e[t] >= up) {
+                    up = -e[t];
+                    i = t;
+                }
+            }
+            // j gives the largest decrease of the objective
+            int j = -1;
+            double low = Double.NEGATIVE_INFINITY;
+            double[] rowi = i == -1 ? null : cache.getRow(i);
+            if (i != -1) {
+                double kii = cache.getDiagonal(i);
+                double best = Double.POSITIVE_INFINITY;
+                for (int p = 0; p < activeSize; p++) {
+                    int t = active[p];
+                    if (!(y[t] > 0 ? a[t] > 0 : a[t] < c)) {
+                        continue;
+                    }
+                    low = Math.max(low, e[t]);
+                    double gap = up + e[t];
+                    if (gap > 0) {
+                        double eta = kii + cache.getDiagonal(t) - 2 * rowi[t];
+                        if (eta <= 0) {
+                            eta = TAU;
+                        }
+                        double objective = -gap * gap / eta;
+                        if (objective <= best) {
+                            best = objective;
+                            j = t;
+                        }
+                    }
+                }
+            }
+            if (j == -1 || up + low < GAP_TOLERANCE) {
+                if (activeSize < n) {
+                    // make sure the shrunk examples are optimal too,
+                    // selecting again before shrinking any further
+                    reconstructErrors(y, active, activeSize);
+                    activeSize = n;
+                    counter = 2;
+                    continue;
+                }
+                break;
+            }
+            iterations++;
+            step(i, j, y, rowi, active, activeSize);
+        }
+        // stopped at the step limit with examples still shrunk,
+        // whose errors are out of date
+        if (activeSize < n) {
+            reconstructErrors(y, active, activeSize);
+        }
+        // the threshold is the error of the free examples,
+        // or the middle of the range allowed by the bound ones
+        double upper = Double.POSITIVE_INFINITY;
+        double lower = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        int free = 0;
+        for (int k = 0; k < n; k++) {
+            if (a[k] >= c) {
+                if (y[k] < 0) {
+                    upper = Math.min(upper, e[k]);
+                } else {
+                    lower = Math.max(lower, e[k]);
+                }
+            } else if (a[k] <= 0) {
+                if (y[k] > 0) {
+                    upper = Math.min(upper, e[k]);
+                } else {
+                    lower = Math.max(lower, e[k]);
+                }
+            } else {
+                sum += e[k];
+                free++;
+            }
+        }
+        b = free > 0 ? sum / free : (upper + lower) / 2;
+        // and now the error cache holds the real errors
+        for (int k = 0; k < n; k++) {
+            e[k] -= b;
+        }
+        return 0;
+    }
+    
+    /**
+     * Take an optimization step on two examples chosen by second
+     * order working set selection, clipping exactly to the bounds
+     * @param i the first example
+     * @param j the second example
+     * @param y the labels
+     * @param rowi the kernel row of the first example
+     * @param active the examples, active ones first
+     * @param activeSize the number of active examples
+     */
+    private void step(int i, int j, double[] y, double[] rowi,
+            int[] active, int activeSize) {
+        double[] rowj = cache.getRow(j);
+        double eta = cache.getDiagonal(i) + cache.getDiagonal(j) - 2 * rowi[j];
+        if (eta <= 0) {
+            eta = TAU;
+        }
+        double ai, aj;
+        if (y[i] != y[j]) {
+            double delta = (-y[i] * e[i] - y[j] * e[j]) / eta;
+            double diff = a[i] - a[j];
+            ai = a[i] + delta;
+            aj = a[j] + delta;
+            if (diff > 0) {
+                if (aj < 0) {
+                    aj = 0;
+                    ai = diff;
+                }
+                if (ai > c) {
+                    ai = c;
+                    aj = c - diff;
+                }
+            } else {
+                if (ai < 0) {
+                    ai = 0;
+                    aj = -diff;
+                }
+                if (aj > c) {
+                    aj = c;
+                    ai = c + diff;
+                }
+            }
+        } else {
+            double delta = (y[i] * e[i] - y[j] * e[j]) / eta;
+            double sum = a[i] + a[j];
+            ai = a[i] - delta;
+            aj = a[j] + delta;
+            if (sum > c) {
+                if (ai > c) {
+                    ai = c;
+                    aj = sum - c;
+                }
+                if (aj > c) {
+                    aj = c;
+                    ai = sum - c;
+                }
+            } else {
+                if (aj < 0) {
+                    aj = 0;
+                    ai = sum;
+                }
+                if (ai < 0) {
+                    ai = 0;
+                    aj = sum;
+                }
+            }
+        }
+        // the deltas
+        double ti = y[i]*(ai - a[i]);
+        double tj = y[j]*(aj - a[j]);
+        // update the linear vector if needed
+        if (w != null) {
+            w = examples.get(i).getData().times(ti).plus(w);
+            w = examples.get(j).getData().times(tj).plus(w);          
+        }
+        // update the error cache for the active examples
+        for (int p = 0; p < activeSize; p++) {
+            int k = active[p];
+            e[k] += ti*rowi[k] + tj*rowj[k];
+        }
+        a[i] = ai;
+        a[j] = aj;
+    }
+    
+    /**
+     * Check whether an example can be left out of the active set,
+     * because it is at a bound and would not be chosen for a step
+     * @param t the example
+     * @param yt the label of the example
+     * @param up the largest violation going up
+     * @param low the largest violation going down
+     * @return true if it can be shrunk
+     */
+    private boolean isShrinkable(int t, double yt, double up, double low) {
+        if (a[t] >= c) {
+            return yt > 0 ? -e[t] > up : e[t] > low;
+        } else if (a[t] <= 0) {
+            return yt > 0 ? e[t] > low : -e[t] > up;
+        } else {
+            return false;
+        }
+    }
+    
+    /**
+     * Compute the error cache without the threshold from scratch
+     * for the examples that are not active
+     * @param y the labels
+     * @param active the examples, active ones first
+     * @param activeSize the number of active examples
+     */
+    private void reconstructErrors(double[] y, int[] active, int activeSize) {
+        for (int p = activeSize; p < active.length; p++) {
+            int k = active[p];
+            double result = 0;
+            for (int j = 0; j < a.length; j++) {
+                if (a[j] != 0) {
+                    result += y[j] * a[j] * cache.value(k, j);
+                }
+            }
+            e[k] = result - y[k];
+        }
+    }
+    
     /**
      * Get the created support vector machine
      * @return the support vector machine
@@ -176,6 +510,14 @@ public class SequentialMinimalOptimization implements Trainer {
     public int getNumberOfIterations() {
         return iterations;
     }
+    
+    /**
+     * Get the kernel cache, for its hit and miss counts
+     * @return the kernel cache
+     */
+    public KernelCache getKernelCache() {
+        return cache;
+    }
   
     /**
      * Examine an example
@@ -285,9 +627,9 @@ public class SequentialMinimalOptimization implements Trainer {
         }
         
         // compute the kernel values
-        double kii = kernel.value(i, i);
-        double kij = kernel.value(i, j);
-        double kjj = kernel.value(j, j);
+        double kii = cache.value(i, i);
+        double kij = cache.value(i, j);
+        double kjj = cache.value(j, j);
         // the second derivative of the objective function
         double eta = 2*kij - kii - kjj;
         
@@ -382,9 +724,11 @@ public class SequentialMinimalOptimization implements Trainer {
         
         // update the error cache
         // for non bound examples not in the cache
+        double[] rowi = cache.getRow(i);
+        double[] rowj = cache.getRow(j);
         for (int k = 0; k < e.length; k++) {
             if (k != i && k != j && !isBound(k)) {
-                e[k] += ti*kernel.value(i,k) + tj*kernel.value(j,k) + tb;
+                e[k] += ti*rowi[k] + tj*rowj[k] + tb;
             }
         }
        
@@ -429,12 +773,14 @@ public class SequentialMinimalOptimization implements Trainer {
         if (w != null) {
             return examples.get(i).getData().dotProduct(w) - b;
         }
-        // non linear slow case
+        // non linear slow case, only filling free space in the
+        // cache since a pass over all examples would flush it
+        double[] row = cache.getRow(i, false);
         double result = 0;
         for (int j = 0; j < a.length; j++) {
             if (a[j] != 0) {
                 result += examples.get(j).getLabel().getPlusMinus() 
-                    * a[j] * kernel.value(i, j);
+                    * a[j] * (row != null ? row[j] : kernel.value(i, j));
             }
         }
         result -= b;
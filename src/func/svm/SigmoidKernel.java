@@ -68,6 +68,22 @@ public class SigmoidKernel extends Kernel {
         }
     }
     
+    /**
+     * Get the weight of the dot product
+     * @return the weight of the dot product
+     */
+    public double getDotProductWeight() {
+        return dotProductWeight;
+    }
+    
+    /**
+     * Get the additive constant
+     * @return the additive constant
+     */
+    public double getAdditiveConstant() {
+        return additiveConstant;
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
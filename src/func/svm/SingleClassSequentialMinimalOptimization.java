@@ -44,6 +44,11 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
      */
     private Kernel kernel;
     
+    /**
+     * The cache of kernel rows
+     */
+    private KernelCache cache;
+    
     /**
      * The slack value, all langrange multipliers are between
      * 0 and 1 / (v * l) where v is examples.size()
@@ -71,9 +76,10 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
      * @param examples the instances to train on
      * @param kernel the kernel to use
      * @param v the slack value
+     * @param cacheSize the size of the kernel cache in megabytes
      */
     public SingleClassSequentialMinimalOptimization(DataSet examples,
-            Kernel kernel, double v) {
+            Kernel kernel, double v, double cacheSize) {
         // v can't be bigger than 1
         v = Math.min(v, 1);
         
@@ -84,6 +90,7 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
         // set up the kernel
         kernel.clear();
         kernel.setExamples(examples);
+        cache = new KernelCache(kernel, cacheSize);
         
         // initialize v * examples.size() of 
         // the multipliers to be 1 / (v*examples.size())
@@ -108,6 +115,17 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
             p = Math.max(p, output(indices[i]));
         }
     }
+    
+    /**
+     * Make a new SMO trainer with the default kernel cache size
+     * @param examples the instances to train on
+     * @param kernel the kernel to use
+     * @param v the slack value
+     */
+    public SingleClassSequentialMinimalOptimization(DataSet examples,
+            Kernel kernel, double v) {
+        this(examples, kernel, v, KernelCache.DEFAULT_SIZE);
+    }
 
     /**
      * @see shared.Trainer#train()
@@ -187,6 +205,14 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
     public int getNumberOfIterations() {
         return iterations;
     }
+    
+    /**
+     * Get the kernel cache, for its hit and miss counts
+     * @return the kernel cache
+     */
+    public KernelCache getKernelCache() {
+        return cache;
+    }
   
     /**
      * Examine an example
@@ -260,9 +286,9 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
         double oi = output(i);        
         
         // compute the kernel values
-        double kii = kernel.value(i, i);
-        double kij = kernel.value(i, j);
-        double kjj = kernel.value(j, j);
+        double kii = cache.value(i, i);
+        double kij = cache.value(i, j);
+        double kjj = cache.value(j, j);
         
         // calculate the c values, which are the outputs
         // minus the contributions from i and j
@@ -364,10 +390,13 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
      * @return the unthresholded value
      */
     private final double output(int i) {
+        // only fill free space in the cache, since
+        // a pass over all examples would flush it
+        double[] row = cache.getRow(i, false);
         double result = 0;
         for (int j = 0; j < a.length; j++) {
             if (a[j] != 0) {
-                result += a[j] * kernel.value(i, j);
+                result += a[j] * (row != null ? row[j] : kernel.value(i, j));
             }
         }
         return result;
@@ -63,9 +63,11 @@ public class SingleClassSupportVectorMachine {
      * @return the value
      */
     public double margin(Instance data) {
+        double[] k = new double[supportVectors.size()];
+        kernel.valueRow(data, k);
         double result = 0;
         for (int i = 0; i < supportVectors.size(); i++) {
-            result += a[i] * kernel.value(i, data);
+            result += a[i] * k[i];
         }
         result -= b;
         return result;
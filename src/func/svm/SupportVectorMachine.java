@@ -1,25 +1,46 @@
 package func.svm;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import shared.DataSet;
 import shared.Instance;
 
 /**
- * A support vector machine implementation
+ * A support vector machine implementation.
+ * Only the examples with non zero weights are kept, and each
+ * weight is stored already multiplied by the example's label.
+ * With a linear kernel the support vectors are summed into a
+ * single weight vector.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class SupportVectorMachine {
+    /**
+     * The number of queries scored together in a batch
+     */
+    private static final int BLOCK_SIZE = 256;
     
     /**
      * The support vectors
      */
     private DataSet supportVectors;
-
+    
     /**
      * The weights for the support vectors
      */
     private double[] a;
     
+    /**
+     * The weights times the labels of the support vectors
+     */
+    private double[] coefficients;
+    
+    /**
+     * The weight vector for a linear kernel, or null
+     */
+    private double[] w;
+    
     /**
      * The kernel function
      */
@@ -30,6 +51,11 @@ public class SupportVectorMachine {
      */
     private double b;
     
+    /**
+     * The pool to split batches across, or null
+     */
+    private ForkJoinPool pool;
+    
     /**
      * Create a new support vector machine
      * @param supportVectors the support vectors
@@ -39,15 +65,57 @@ public class SupportVectorMachine {
      */
     public SupportVectorMachine(DataSet supportVectors,
             double[] a, Kernel kernel, double b) {
+        // leave out anything that isn't actually a support vector
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != 0) {
+                count++;
+            }
+        }
+        if (count < a.length) {
+            Instance[] support = new Instance[count];
+            double[] supporta = new double[count];
+            int j = 0;
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != 0) {
+                    support[j] = supportVectors.get(i);
+                    supporta[j] = a[i];
+                    j++;
+                }
+            }
+            DataSet supportSet = new DataSet(support);
+            supportSet.setDescription(supportVectors.getDescription());
+            supportVectors = supportSet;
+            a = supporta;
+        }
         this.supportVectors = supportVectors;
         this.a = a;
         this.kernel = kernel;
         this.b = b;
         kernel.clear();
         kernel.setExamples(supportVectors);
+        coefficients = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            coefficients[i] = supportVectors.get(i).getLabel().getPlusMinus() * a[i];
+        }
+        if (kernel instanceof LinearKernel && a.length > 0) {
+            w = new double[supportVectors.get(0).size()];
+            for (int i = 0; i < a.length; i++) {
+                for (int k = 0; k < w.length; k++) {
+                    w[k] += coefficients[i] * supportVectors.get(i).getContinuous(k);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Set the pool used to split batches of queries across cores
+     * @param pool the pool, or null to score on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
     
-
     /**
      * Evaluate the support vector machine for the given data
      * @param data the data to evaluate for
@@ -56,22 +124,86 @@ public class SupportVectorMachine {
     public Instance value(Instance d) {
         return new Instance(margin(d) >= 0);
     }
-
+    
     /**
      * Evaluate the support vector machine for the given data
      * @param data the data to evaluate for
      * @return the value
      */
     public double margin(Instance data) {
+        if (w != null && data.size() == w.length) {
+            double result = 0;
+            for (int k = 0; k < w.length; k++) {
+                result += w[k] * data.getContinuous(k);
+            }
+            return result - b;
+        }
+        return margin(data, new double[a.length]);
+    }
+    
+    /**
+     * Evaluate the support vector machine for the given data
+     * @param data the data to evaluate for
+     * @param k an array to hold the kernel values
+     * @return the value
+     */
+    private double margin(Instance data, double[] k) {
+        kernel.valueRow(data, k);
         double result = 0;
-        for (int i = 0; i < supportVectors.size(); i++) {
-            result += supportVectors.get(i).getLabel().getPlusMinus()
-                * a[i] * kernel.value(i, data);
+        for (int i = 0; i < coefficients.length; i++) {
+            result += coefficients[i] * k[i];
         }
         result -= b;
         return result;
     }
     
+    /**
+     * Evaluate the support vector machine for a whole set of data
+     * @param set the data to evaluate for
+     * @return the values
+     */
+    public Instance[] value(DataSet set) {
+        double[] margins = margin(set);
+        Instance[] result = new Instance[margins.length];
+        for (int i = 0; i < margins.length; i++) {
+            result[i] = new Instance(margins[i] >= 0);
+        }
+        return result;
+    }
+    
+    /**
+     * Evaluate the margin for a whole set of data, splitting
+     * it into blocks across the pool if there is one
+     * @param set the data to evaluate for
+     * @return the margins
+     */
+    public double[] margin(DataSet set) {
+        double[] margins = new double[set.size()];
+        int blocks = (set.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (pool == null || blocks <= 1) {
+            for (int i = 0; i < blocks; i++) {
+                margin(set, margins, i);
+            }
+        } else {
+            pool.invoke(new MarginTask(set, margins, 0, blocks));
+        }
+        return margins;
+    }
+    
+    /**
+     * Evaluate the margin for a block of data
+     * @param set the data
+     * @param margins the array to store the margins in
+     * @param block the block of data
+     */
+    private void margin(DataSet set, double[] margins, int block) {
+        int end = Math.min(set.size(), (block + 1) * BLOCK_SIZE);
+        double[] k = w == null ? new double[a.length] : null;
+        for (int i = block * BLOCK_SIZE; i < end; i++) {
+            margins[i] = k == null ? margin(set.get(i)) : margin(set.get(i), k);
+        }
+    }
+    
     /**
      * Get the support vectors for the machine
      * @return the support vectors
@@ -80,6 +212,30 @@ public class SupportVectorMachine {
         return supportVectors;
     }
     
+    /**
+     * Get the weights for the support vectors
+     * @return the weights
+     */
+    public double[] getWeights() {
+        return a;
+    }
+    
+    /**
+     * Get the kernel function
+     * @return the kernel
+     */
+    public Kernel getKernel() {
+        return kernel;
+    }
+    
+    /**
+     * Get the threshold, which is subtracted
+     * @return the threshold
+     */
+    public double getThreshold() {
+        return b;
+    }
+    
     
     /**
      * @see java.lang.Object#toString()
@@ -92,4 +248,46 @@ public class SupportVectorMachine {
        }
        return ret;
     }
+    
+    /**
+     * A task that evaluates a range of blocks of data,
+     * splitting it in half until it is a single block
+     */
+    private class MarginTask extends RecursiveAction {
+        /** The data */
+        private DataSet set;
+        /** The margins */
+        private double[] margins;
+        /** The first block inclusive */
+        private int start;
+        /** The last block exclusive */
+        private int end;
+    
+        /**
+         * Make a new margin task
+         * @param set the data
+         * @param margins the margins
+         * @param start the first block inclusive
+         * @param end the last block exclusive
+         */
+        public MarginTask(DataSet set, double[] margins, int start, int end) {
+            this.set = set;
+            this.margins = margins;
+            this.start = start;
+            this.end = end;
+        }
+    
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start == 1) {
+                margin(set, margins, start);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new MarginTask(set, margins, start, mid),
+                new MarginTask(set, margins, mid, end));
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package func.test;
+
+import java.util.Random;
+
+import shared.DataSet;
+import shared.Instance;
+import func.svm.Kernel;
+import func.svm.LinearKernel;
+import func.svm.RBFKernel;
+import func.svm.SequentialMinimalOptimization;
+import func.svm.SupportVectorMachine;
+
+/**
+ * Trains on a small separable problem with Platt's heuristics and
+ * with second order working set selection, with and without
+ * shrinking, and checks that they find the same support vectors
+ * and give the same margins
+ * @version 1.0
+ */
+public class SecondOrderSequentialMinimalOptimizationTest {
+    /**
+     * The number of examples
+     */
+    private static final int N = 80;
+
+    /**
+     * The largest difference in margins to allow
+     */
+    private static final double TOLERANCE = 1e-2;
+
+    /**
+     * Test main
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        // two classes on either side of x + y = 0 with a gap between
+        Random random = new Random(1);
+        Instance[] instances = new Instance[N];
+        for (int i = 0; i < N; i++) {
+            double x, y;
+            do {
+                x = random.nextDouble() * 4 - 2;
+                y = random.nextDouble() * 4 - 2;
+            } while (Math.abs(x + y) < .5);
+            instances[i] = new Instance(new double[] {x, y}, x + y > 0);
+        }
+        DataSet set = new DataSet(instances);
+        Kernel[] kernels = { new LinearKernel(), new RBFKernel(1) };
+        for (int k = 0; k < kernels.length; k++) {
+            SupportVectorMachine first = train(set, kernels[k], false, false);
+            SupportVectorMachine second = train(set, kernels[k], true, false);
+            SupportVectorMachine shrunk = train(set, kernels[k], true, true);
+            System.out.println(kernels[k] + ": " + first.getSupportVectors().size()
+                + " support vectors");
+            compare("second order", first, second, instances);
+            compare("second order with shrinking", first, shrunk, instances);
+        }
+    }
+
+    /**
+     * Train a support vector machine
+     * @param set the examples
+     * @param kernel the kernel
+     * @param secondOrder whether to use second order selection
+     * @param shrinking whether to shrink
+     * @return the machine
+     */
+    private static SupportVectorMachine train(DataSet set, Kernel kernel,
+            boolean secondOrder, boolean shrinking) {
+        SequentialMinimalOptimization smo =
+            new SequentialMinimalOptimization(set, kernel, 100);
+        smo.setSecondOrder(secondOrder);
+        smo.setShrinking(shrinking);
+        smo.train();
+        return smo.getSupportVectorMachine();
+    }
+
+    /**
+     * Print whether two machines have the same support vectors
+     * and how far apart their margins are on the examples
+     * @param name the name of the comparison
+     * @param expected the machine trained with Platt's heuristics
+     * @param actual the machine to compare to it
+     * @param instances the examples
+     */
+    private static void compare(String name, SupportVectorMachine expected,
+            SupportVectorMachine actual, Instance[] instances) {
+        DataSet a = expected.getSupportVectors();
+        DataSet b = actual.getSupportVectors();
+        boolean same = a.size() == b.size();
+        for (int i = 0; same && i < a.size(); i++) {
+            same = a.get(i) == b.get(i);
+        }
+        double most = 0;
+        for (int i = 0; i < instances.length; i++) {
+            most = Math.max(most, Math.abs(expected.margin(instances[i])
+                - actual.margin(instances[i])));
+        }
+        System.out.println("  " + name + ": same support vectors " + same
+            + ", largest margin difference " + most
+            + (most < TOLERANCE ? "" : " TOO LARGE"));
+    }
+}
@@ -0,0 +1,426 @@
+package opt;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.DenseVector;
+import util.linalg.IntVector;
+import util.linalg.Vector;
+
+/**
+ * An evaluation function that remembers the values of the data it
+ * has scored, for populations full of duplicates and functions that
+ * are expensive to call.  Data is looked up by a 64 bit hash of its
+ * contents and then compared in full, so a hit always returns the
+ * value the wrapped function gave for exactly the same data.
+ * The cache holds a fixed number of entries in sets of a few each;
+ * a full set throws out an entry with the clock algorithm, which
+ * passes over entries that have been used since it last looked.
+ * Every entry keeps a copy of its data, 8 bytes a value for real
+ * valued data, 4 for integer data and one bit for bit vectors, plus
+ * about 40 bytes of its own.  The copies are also held to a budget
+ * in bytes, and data that would go over it isn't kept, so a cache
+ * of large weight vectors holds few entries instead of running out
+ * of memory.
+ * The sets are guarded by a small array of locks and the wrapped
+ * function is called outside of them, so the cache can be shared
+ * by threads as long as the wrapped function can be.
+ * Hashing costs a pass over the data, so this only pays off when
+ * the function costs more than that.  The cache only scores whole
+ * data, so wrapping a DeltaEvaluationFunction hides its move scoring
+ * and a GenericMoveHillClimbingProblem given the cache scores every
+ * move by copying the data and looking it up.
+ * @version 1.0
+ */
+public class CachingEvaluationFunction implements EvaluationFunction {
+    /**
+     * The default number of entries
+     */
+    public static final int DEFAULT_SIZE = 1 << 16;
+
+    /**
+     * The default number of bytes of copied data to keep
+     */
+    public static final long DEFAULT_BYTES = 64L << 20;
+
+    /**
+     * The number of entries in each set
+     */
+    private static final int WAYS = 4;
+
+    /**
+     * The number of locks the sets are spread over
+     */
+    private static final int LOCKS = 64;
+
+    /**
+     * The function being cached
+     */
+    private EvaluationFunction eval;
+
+    /**
+     * The mask taking a hash to a set
+     */
+    private int setMask;
+
+    /**
+     * The hash of each entry
+     */
+    private long[] hashes;
+
+    /**
+     * The copied contents of each entry, null if empty
+     */
+    private Object[] keys;
+
+    /**
+     * The size of the data of each entry
+     */
+    private int[] sizes;
+
+    /**
+     * The value of each entry
+     */
+    private double[] values;
+
+    /**
+     * Whether each entry has been used since the clock passed it
+     */
+    private boolean[] referenced;
+
+    /**
+     * The clock hand for each set
+     */
+    private int[] hands;
+
+    /**
+     * The locks
+     */
+    private Object[] locks;
+
+    /**
+     * The most bytes of copied data to keep
+     */
+    private long maxBytes;
+
+    /**
+     * The bytes of copied data being kept
+     */
+    private AtomicLong bytes = new AtomicLong();
+
+    /**
+     * The number of lookups found in the cache
+     */
+    private AtomicLong hits = new AtomicLong();
+
+    /**
+     * The number of lookups that weren't
+     */
+    private AtomicLong misses = new AtomicLong();
+
+    /**
+     * Make a new caching evaluation function
+     * @param eval the function to cache
+     * @param size the most entries to keep, rounded
+     * up to a power of two
+     * @param maxBytes the most bytes of copied data to keep
+     */
+    public CachingEvaluationFunction(EvaluationFunction eval, int size, long maxBytes) {
+        this.eval = eval;
+        this.maxBytes = maxBytes;
+        int sets = 1;
+        while (sets * WAYS < size) {
+            sets <<= 1;
+        }
+        setMask = sets - 1;
+        int entries = sets * WAYS;
+        hashes = new long[entries];
+        keys = new Object[entries];
+        sizes = new int[entries];
+        values = new double[entries];
+        referenced = new boolean[entries];
+        hands = new int[sets];
+        locks = new Object[LOCKS];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Make a new caching evaluation function
+     * with the default budget in bytes
+     * @param eval the function to cache
+     * @param size the most entries to keep, rounded
+     * up to a power of two
+     */
+    public CachingEvaluationFunction(EvaluationFunction eval, int size) {
+        this(eval, size, DEFAULT_BYTES);
+    }
+
+    /**
+     * Make a new caching evaluation function of the default size
+     * @param eval the function to cache
+     */
+    public CachingEvaluationFunction(EvaluationFunction eval) {
+        this(eval, DEFAULT_SIZE);
+    }
+
+    /**
+     * @see opt.EvaluationFunction#value(shared.Instance)
+     */
+    public double value(Instance d) {
+        Vector data = d.getData();
+        long hash = hash(data);
+        int set = (int) (hash ^ (hash >>> 32)) & setMask;
+        int base = set * WAYS;
+        Object lock = locks[set & (LOCKS - 1)];
+        synchronized (lock) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (keys[i] != null && hashes[i] == hash && matches(i, data)) {
+                    referenced[i] = true;
+                    hits.incrementAndGet();
+                    return values[i];
+                }
+            }
+        }
+        misses.incrementAndGet();
+        double value = eval.value(d);
+        Object key = key(data);
+        synchronized (lock) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (keys[i] != null && hashes[i] == hash && matches(i, data)) {
+                    // another thread got here first
+                    return value;
+                }
+            }
+            int slot = victim(set);
+            if (!reserve(bytes(key) - (keys[slot] == null ? 0 : bytes(keys[slot])))) {
+                // keeping it would go over the budget
+                return value;
+            }
+            hashes[slot] = hash;
+            keys[slot] = key;
+            sizes[slot] = data.size();
+            values[slot] = value;
+            referenced[slot] = false;
+        }
+        return value;
+    }
+
+    /**
+     * Pick the entry of a set to replace, holding its lock
+     * @param set the set
+     * @return the entry
+     */
+    private int victim(int set) {
+        int base = set * WAYS;
+        for (int i = base; i < base + WAYS; i++) {
+            if (keys[i] == null) {
+                return i;
+            }
+        }
+        // sweep the hand around, giving used entries a second chance
+        while (true) {
+            int i = base + hands[set];
+            hands[set] = (hands[set] + 1) % WAYS;
+            if (referenced[i]) {
+                referenced[i] = false;
+            } else {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Change the count of bytes kept, unless that
+     * would take it over the budget
+     * @param change the change in bytes
+     * @return true if the change was made
+     */
+    private boolean reserve(long change) {
+        while (true) {
+            long current = bytes.get();
+            if (change > 0 && current + change > maxBytes) {
+                return false;
+            }
+            if (bytes.compareAndSet(current, current + change)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the number of bytes in a key
+     * @param key the key
+     * @return the number of bytes
+     */
+    private static long bytes(Object key) {
+        if (key instanceof int[]) {
+            return 4L * ((int[]) key).length;
+        } else if (key instanceof long[]) {
+            return 8L * ((long[]) key).length;
+        }
+        return 8L * ((double[]) key).length;
+    }
+
+    /**
+     * Hash the contents of some data
+     * @param data the data
+     * @return the hash
+     */
+    private static long hash(Vector data) {
+        long h = data.size();
+        if (data instanceof BitVector) {
+            long[] words = ((BitVector) data).getWords();
+            for (int i = 0; i < words.length; i++) {
+                h = mix(h, words[i]);
+            }
+        } else if (data instanceof IntVector) {
+            int[] ints = ((IntVector) data).getData();
+            for (int i = 0; i < ints.length; i++) {
+                h = mix(h, ints[i]);
+            }
+        } else {
+            for (int i = 0; i < data.size(); i++) {
+                h = mix(h, Double.doubleToLongBits(data.get(i)));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Mix a value into a hash
+     * @param h the hash so far
+     * @param v the value
+     * @return the new hash
+     */
+    private static long mix(long h, long v) {
+        h = (h ^ v) * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Copy the contents of some data to keep as a key
+     * @param data the data
+     * @return the key
+     */
+    private static Object key(Vector data) {
+        if (data instanceof BitVector) {
+            return ((BitVector) data).getWords().clone();
+        } else if (data instanceof IntVector) {
+            return ((IntVector) data).getData().clone();
+        } else if (data instanceof DenseVector) {
+            return ((DenseVector) data).getData().clone();
+        }
+        double[] copy = new double[data.size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = data.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Whether an entry's key holds the same contents as some data
+     * @param i the entry
+     * @param data the data
+     * @return true if they are the same
+     */
+    private boolean matches(int i, Vector data) {
+        if (sizes[i] != data.size()) {
+            return false;
+        }
+        Object key = keys[i];
+        if (data instanceof BitVector) {
+            return key instanceof long[]
+                && Arrays.equals((long[]) key, ((BitVector) data).getWords());
+        } else if (data instanceof IntVector) {
+            return key instanceof int[]
+                && Arrays.equals((int[]) key, ((IntVector) data).getData());
+        } else if (!(key instanceof double[])) {
+            return false;
+        }
+        double[] contents = (double[]) key;
+        for (int j = 0; j < contents.length; j++) {
+            if (Double.doubleToLongBits(contents[j]) != Double.doubleToLongBits(data.get(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the function being cached
+     * @return the function
+     */
+    public EvaluationFunction getEvaluationFunction() {
+        return eval;
+    }
+
+    /**
+     * Get the number of bytes of copied data being kept
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Get the number of lookups found in the cache
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups not found in the cache
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the fraction of lookups found in the cache
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Throw out every entry and reset the counts
+     */
+    public void clear() {
+        for (int l = 0; l < locks.length; l++) {
+            synchronized (locks[l]) {
+                for (int set = l; set <= setMask; set += LOCKS) {
+                    int base = set * WAYS;
+                    for (int i = base; i < base + WAYS; i++) {
+                        if (keys[i] != null) {
+                            bytes.addAndGet(-bytes(keys[i]));
+                        }
+                        keys[i] = null;
+                        referenced[i] = false;
+                    }
+                }
+            }
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return "Evaluation cache of " + keys.length + " entries, "
+            + getBytes() + " bytes kept, "
+            + getHits() + " hits, " + getMisses() + " misses";
+    }
+
+}
@@ -0,0 +1,64 @@
+package opt;
+
+import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.IntVector;
+import util.linalg.Vector;
+
+/**
+ * A move that changes a single value
+ * @version 1.0
+ */
+public class ChangeOneMove implements Move {
+
+    /**
+     * The index of the value to change
+     */
+    private int index;
+
+    /**
+     * The new value
+     */
+    private int value;
+
+    /**
+     * Make a new change one move
+     * @param index the index of the value to change
+     * @param value the new value
+     */
+    public ChangeOneMove(int index, int value) {
+        this.index = index;
+        this.value = value;
+    }
+
+    /**
+     * @see opt.Move#apply(shared.Instance)
+     */
+    public void apply(Instance d) {
+        Vector data = d.getData();
+        if (data instanceof BitVector) {
+            ((BitVector) data).setBit(index, value == 1);
+        } else if (data instanceof IntVector) {
+            ((IntVector) data).setInt(index, value);
+        } else {
+            data.set(index, value);
+        }
+    }
+
+    /**
+     * Get the index of the value to change
+     * @return the index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the new value
+     * @return the value
+     */
+    public int getValue() {
+        return value;
+    }
+
+}
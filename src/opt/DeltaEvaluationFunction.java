@@ -0,0 +1,46 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * An evaluation function that can score a move from a piece of data
+ * without scoring the result from scratch.  It keeps whatever running
+ * totals it needs about the data, such as a sum or a tour length,
+ * in an array made by totals and kept up to date by update.
+ * A function that can't score some kind of move returns NaN from
+ * value and false from update, and the caller falls back to a
+ * full evaluation.  Totals that are floating point sums pick up
+ * rounding error with every update, so callers that make many
+ * moves should make them again with totals every so often.
+ * @version 1.0
+ */
+public interface DeltaEvaluationFunction extends EvaluationFunction {
+
+    /**
+     * Make the running totals for a piece of data
+     * @param d the data
+     * @return the totals
+     */
+    public abstract double[] totals(Instance d);
+
+    /**
+     * Score a move without making it
+     * @param d the data
+     * @param totals the totals for the data
+     * @param move the move
+     * @return the value the data would have after the move,
+     * or NaN if the move can't be scored this way
+     */
+    public abstract double value(Instance d, double[] totals, Move move);
+
+    /**
+     * Update the totals for a move that is about to be applied
+     * @param d the data, not yet changed
+     * @param totals the totals to update
+     * @param move the move
+     * @return true if the totals were updated, false
+     * if the move can't be scored this way
+     */
+    public abstract boolean update(Instance d, double[] totals, Move move);
+
+}
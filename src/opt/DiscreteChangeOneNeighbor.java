@@ -9,7 +9,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class DiscreteChangeOneNeighbor implements NeighborFunction {
+public class DiscreteChangeOneNeighbor implements MoveNeighborFunction {
     
     /**
      * The ranges of the different values
@@ -29,9 +29,17 @@ public class DiscreteChangeOneNeighbor implements NeighborFunction {
      */
     public Instance neighbor(Instance d) {
         Instance cod = (Instance) d.copy();
-        int i = Distribution.random.nextInt(ranges.length);
-        cod.getData().set(i, Distribution.random.nextInt(ranges[i]));
+        move(cod).apply(cod);
         return cod;
     }
 
+    /**
+     * @see opt.MoveNeighborFunction#move(shared.Instance)
+     */
+    public Move move(Instance d) {
+        int i = Distribution.random.nextInt(ranges.length);
+        int value = Distribution.random.nextInt(ranges[i]);
+        return new ChangeOneMove(i, value);
+    }
+
 }
\ No newline at end of file
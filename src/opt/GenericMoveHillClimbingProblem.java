@@ -0,0 +1,89 @@
+package opt;
+
+import shared.Instance;
+import dist.Distribution;
+
+/**
+ * A generic hill climbing problem with move based neighbors.
+ * Moves are scored with the evaluation function's delta scoring when
+ * it has one, and otherwise by making the move on a copy of the
+ * data and scoring that.
+ * @version 1.0
+ */
+public class GenericMoveHillClimbingProblem extends GenericHillClimbingProblem
+        implements MoveHillClimbingProblem {
+
+    /**
+     * The evaluation function
+     */
+    private EvaluationFunction eval;
+
+    /**
+     * The evaluation function if it can score moves, or null
+     */
+    private DeltaEvaluationFunction delta;
+
+    /**
+     * The neighbor function
+     */
+    private MoveNeighborFunction neigh;
+
+    /**
+     * Make a new move hill climbing problem
+     * @param eval the evaluation function
+     * @param dist the initial distribution
+     * @param neigh the neighbor function
+     */
+    public GenericMoveHillClimbingProblem(EvaluationFunction eval, Distribution dist,
+            MoveNeighborFunction neigh) {
+        super(eval, dist, neigh);
+        this.eval = eval;
+        this.neigh = neigh;
+        if (eval instanceof DeltaEvaluationFunction) {
+            delta = (DeltaEvaluationFunction) eval;
+        }
+    }
+
+    /**
+     * @see opt.MoveHillClimbingProblem#move(shared.Instance)
+     */
+    public Move move(Instance d) {
+        return neigh.move(d);
+    }
+
+    /**
+     * @see opt.MoveHillClimbingProblem#totals(shared.Instance)
+     */
+    public double[] totals(Instance d) {
+        return delta == null ? null : delta.totals(d);
+    }
+
+    /**
+     * @see opt.MoveHillClimbingProblem#value(shared.Instance, double[], opt.Move)
+     */
+    public double value(Instance d, double[] totals, Move move) {
+        if (delta != null) {
+            double value = delta.value(d, totals, move);
+            if (!Double.isNaN(value)) {
+                return value;
+            }
+        }
+        Instance neighbor = (Instance) d.copy();
+        move.apply(neighbor);
+        return eval.value(neighbor);
+    }
+
+    /**
+     * @see opt.MoveHillClimbingProblem#apply(shared.Instance, double[], opt.Move)
+     */
+    public void apply(Instance d, double[] totals, Move move) {
+        if (delta == null || delta.update(d, totals, move)) {
+            move.apply(d);
+        } else {
+            move.apply(d);
+            double[] fresh = delta.totals(d);
+            System.arraycopy(fresh, 0, totals, 0, fresh.length);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * A small change to a piece of data, described without making
+ * a new copy of it, so that it can be scored before it is made
+ * @version 1.0
+ */
+public interface Move {
+
+    /**
+     * Make the move, changing the data in place
+     * @param d the data to change
+     */
+    public abstract void apply(Instance d);
+
+}
@@ -0,0 +1,43 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * A hill climbing problem whose neighbors are moves that are
+ * scored before they are made and then made in place
+ * @version 1.0
+ */
+public interface MoveHillClimbingProblem extends HillClimbingProblem {
+
+    /**
+     * Pick a random move from the given piece of data
+     * @param d the data
+     * @return the move
+     */
+    public abstract Move move(Instance d);
+
+    /**
+     * Make the running totals used to score moves from the data
+     * @param d the data
+     * @return the totals
+     */
+    public abstract double[] totals(Instance d);
+
+    /**
+     * Score a move without making it
+     * @param d the data
+     * @param totals the totals for the data
+     * @param move the move
+     * @return the value the data would have after the move
+     */
+    public abstract double value(Instance d, double[] totals, Move move);
+
+    /**
+     * Make a move, changing the data in place
+     * and keeping its totals up to date
+     * @param d the data
+     * @param totals the totals for the data
+     * @param move the move
+     */
+    public abstract void apply(Instance d, double[] totals, Move move);
+}
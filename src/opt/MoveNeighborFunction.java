@@ -0,0 +1,20 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * A neighbor function that can describe a neighbor as
+ * a move from the data instead of a whole new copy
+ * @version 1.0
+ */
+public interface MoveNeighborFunction extends NeighborFunction {
+
+    /**
+     * Pick a random move from a piece of data,
+     * where applying it gives the neighbor
+     * @param d the data
+     * @return the move
+     */
+    public abstract Move move(Instance d);
+
+}
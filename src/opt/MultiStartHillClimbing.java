@@ -0,0 +1,281 @@
+package opt;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import shared.Instance;
+
+/**
+ * Runs many independent hill climbers on one problem at the same time.
+ * The runners can be a mix of randomized hill climbers and simulated
+ * annealers; each call to train gives every runner a batch of steps,
+ * one fork join task per runner.  The best point any runner has seen
+ * is kept in a single atomic reference that runners update without
+ * locking.  A runner whose own best hasn't improved for a given number
+ * of steps is thrown away and replaced by a new one of the same kind
+ * from a fresh random starting point.  The problem's random, neighbor
+ * and value functions must be thread safe.
+ * @version 1.0
+ */
+public class MultiStartHillClimbing extends OptimizationAlgorithm {
+
+    /**
+     * The runners
+     */
+    private OptimizationAlgorithm[] runners;
+
+    /**
+     * The best value each runner has seen
+     */
+    private double[] runnerBests;
+
+    /**
+     * The number of steps since each runner last improved on its best
+     */
+    private int[] stagnant;
+
+    /**
+     * The number of runners that are randomized hill climbers,
+     * the rest are simulated annealers
+     */
+    private int climbers;
+
+    /**
+     * The starting temperature of the annealers
+     */
+    private double t;
+
+    /**
+     * The cooling factor of the annealers
+     */
+    private double cooling;
+
+    /**
+     * The number of steps each runner takes per call to train
+     */
+    private int steps;
+
+    /**
+     * The number of steps without improvement before
+     * a runner is replaced, or 0 to never replace them
+     */
+    private int patience;
+
+    /**
+     * The number of runners replaced so far
+     */
+    private AtomicInteger restarts = new AtomicInteger();
+
+    /**
+     * The best point seen by any runner
+     */
+    private AtomicReference best = new AtomicReference();
+
+    /**
+     * The pool to run on, or null
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Make a new multi start portfolio
+     * @param hcp the problem to solve
+     * @param climbers the number of randomized hill climbers
+     * @param annealers the number of simulated annealers
+     * @param t the starting temperature of the annealers
+     * @param cooling the cooling factor of the annealers
+     * @param steps the number of steps each runner takes per call to train
+     * @param patience the number of steps without improvement before a
+     * runner is restarted, or 0 to never restart
+     * @param pool the pool to run on, or null to run the runners
+     * one after another on the calling thread
+     */
+    public MultiStartHillClimbing(HillClimbingProblem hcp, int climbers, int annealers,
+            double t, double cooling, int steps, int patience, ForkJoinPool pool) {
+        super(hcp);
+        if (climbers + annealers < 1 || steps < 1 || patience < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.climbers = climbers;
+        this.t = t;
+        this.cooling = cooling;
+        this.steps = steps;
+        this.patience = patience;
+        this.pool = pool;
+        runners = new OptimizationAlgorithm[climbers + annealers];
+        runnerBests = new double[runners.length];
+        stagnant = new int[runners.length];
+        for (int i = 0; i < runners.length; i++) {
+            start(i);
+        }
+    }
+
+    /**
+     * Make a new multi start randomized hill climbing on the common pool
+     * @param hcp the problem to solve
+     * @param climbers the number of randomized hill climbers
+     * @param steps the number of steps each runner takes per call to train
+     * @param patience the number of steps without improvement before a
+     * runner is restarted, or 0 to never restart
+     */
+    public MultiStartHillClimbing(HillClimbingProblem hcp, int climbers,
+            int steps, int patience) {
+        this(hcp, climbers, 0, 0, 0, steps, patience, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Set the pool the runners run on
+     * @param pool the pool, or null to run on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Start a new runner in a slot
+     * @param i the slot
+     */
+    private void start(int i) {
+        HillClimbingProblem hcp = (HillClimbingProblem) getOptimizationProblem();
+        if (i < climbers) {
+            runners[i] = new RandomizedHillClimbing(hcp);
+        } else {
+            runners[i] = new SimulatedAnnealing(t, cooling, hcp);
+        }
+        // the starting point counts as seen
+        Instance start = runners[i].getOptimal();
+        runnerBests[i] = hcp.value(start);
+        stagnant[i] = 0;
+        offer(start, runnerBests[i]);
+    }
+
+    /**
+     * Give every runner its batch of steps
+     * @see shared.Trainer#train()
+     */
+    public double train() {
+        if (pool == null || runners.length == 1) {
+            for (int i = 0; i < runners.length; i++) {
+                run(i);
+            }
+        } else {
+            pool.invoke(new RunTask(0, runners.length));
+        }
+        return ((Best) best.get()).value;
+    }
+
+    /**
+     * Run one runner for its batch of steps, restarting
+     * it if it goes too long without improving
+     * @param i the runner
+     */
+    private void run(int i) {
+        for (int s = 0; s < steps; s++) {
+            double value = runners[i].train();
+            if (value > runnerBests[i]) {
+                runnerBests[i] = value;
+                stagnant[i] = 0;
+                offer(runners[i].getOptimal(), value);
+            } else if (patience > 0 && ++stagnant[i] >= patience) {
+                start(i);
+                restarts.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Replace the global best if the given point is better
+     * @param instance the point
+     * @param value its value
+     */
+    private void offer(Instance instance, double value) {
+        Best candidate = new Best(instance, value);
+        while (true) {
+            Best current = (Best) best.get();
+            if (current != null && current.value >= value) {
+                return;
+            }
+            if (best.compareAndSet(current, candidate)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of runners restarted so far
+     * @return the number of restarts
+     */
+    public int getRestarts() {
+        return restarts.get();
+    }
+
+    /**
+     * Get the best value any runner has seen
+     * @return the value
+     */
+    public double getOptimalValue() {
+        return ((Best) best.get()).value;
+    }
+
+    /**
+     * @see opt.OptimizationAlgorithm#getOptimal()
+     */
+    public Instance getOptimal() {
+        return ((Best) best.get()).instance;
+    }
+
+    /**
+     * A point and its value, never changed once made
+     */
+    private static class Best {
+        /** The point */
+        private Instance instance;
+        /** Its value */
+        private double value;
+
+        /**
+         * Make a new best point
+         * @param instance the point
+         * @param value its value
+         */
+        public Best(Instance instance, double value) {
+            this.instance = instance;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A task that runs a range of runners, splitting
+     * it in half until it is a single runner
+     */
+    private class RunTask extends RecursiveAction {
+        /** The first runner inclusive */
+        private int start;
+        /** The last runner exclusive */
+        private int end;
+
+        /**
+         * Make a new run task
+         * @param start the first runner inclusive
+         * @param end the last runner exclusive
+         */
+        public RunTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start == 1) {
+                run(start);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new RunTask(start, mid), new RunTask(mid, end));
+        }
+    }
+
+}
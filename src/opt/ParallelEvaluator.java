@@ -0,0 +1,171 @@
+package opt;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import shared.Instance;
+
+/**
+ * Evaluates whole populations of instances by splitting
+ * them into blocks and scoring the blocks on a fork join pool.
+ * The problem being evaluated must be safe to call from
+ * several threads at once.
+ * @version 1.0
+ */
+public class ParallelEvaluator {
+    /**
+     * The default number of instances scored by a single task
+     */
+    private static final int DEFAULT_BLOCK_SIZE = 8;
+
+    /**
+     * The pool to run on
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The number of instances scored by a single task
+     */
+    private int blockSize;
+
+    /**
+     * Make a new parallel evaluator
+     * @param pool the pool to run on
+     * @param blockSize the number of instances scored by a single task
+     */
+    public ParallelEvaluator(ForkJoinPool pool, int blockSize) {
+        this.pool = pool;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Make a new parallel evaluator
+     * @param pool the pool to run on
+     */
+    public ParallelEvaluator(ForkJoinPool pool) {
+        this(pool, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Make a new parallel evaluator with its own pool
+     * @param threads the number of worker threads
+     */
+    public ParallelEvaluator(int threads) {
+        this(new ForkJoinPool(threads));
+    }
+
+    /**
+     * Make a new parallel evaluator on the common pool
+     */
+    public ParallelEvaluator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get the pool this evaluator runs on
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Get the number of worker threads
+     * @return the parallelism of the pool
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Evaluate every instance in the given array
+     * @param op the problem to evaluate with
+     * @param data the instances
+     * @param values the array to store the values in
+     */
+    public void value(OptimizationProblem op, Instance[] data, double[] values) {
+        value(op, data, values, null, data.length);
+    }
+
+    /**
+     * Evaluate a subset of the instances in the given array
+     * @param op the problem to evaluate with
+     * @param data the instances
+     * @param values the array to store the values in,
+     * values[k] receives the value of data[k]
+     * @param indices the indices to evaluate, or null for 0 through count - 1
+     * @param count the number of indices to evaluate
+     */
+    public void value(OptimizationProblem op, Instance[] data, double[] values,
+            int[] indices, int count) {
+        if (count <= blockSize) {
+            new EvaluationTask(op, data, values, indices, 0, count).compute();
+        } else {
+            pool.invoke(new EvaluationTask(op, data, values, indices, 0, count));
+        }
+    }
+
+    /**
+     * Shut down the underlying pool, unless it is the common pool
+     */
+    public void shutdown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A task that evaluates a range of the population,
+     * splitting it in half until it is small enough
+     */
+    private class EvaluationTask extends RecursiveAction {
+        /** The problem */
+        private OptimizationProblem op;
+        /** The instances */
+        private Instance[] data;
+        /** The values */
+        private double[] values;
+        /** The indices or null */
+        private int[] indices;
+        /** The starting position inclusive */
+        private int start;
+        /** The ending position exclusive */
+        private int end;
+
+        /**
+         * Make a new evaluation task
+         * @param op the problem
+         * @param data the instances
+         * @param values the values
+         * @param indices the indices or null
+         * @param start the starting position inclusive
+         * @param end the ending position exclusive
+         */
+        public EvaluationTask(OptimizationProblem op, Instance[] data, double[] values,
+                int[] indices, int start, int end) {
+            this.op = op;
+            this.data = data;
+            this.values = values;
+            this.indices = indices;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start <= blockSize) {
+                for (int i = start; i < end; i++) {
+                    int k = indices == null ? i : indices[i];
+                    values[k] = op.value(data[k]);
+                }
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new EvaluationTask(op, data, values, indices, start, mid),
+                new EvaluationTask(op, data, values, indices, mid, end));
+        }
+    }
+
+}
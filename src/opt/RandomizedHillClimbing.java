@@ -3,12 +3,21 @@ package opt;
 import shared.Instance;
 
 /**
- * A randomized hill climbing algorithm
+ * A randomized hill climbing algorithm.
+ * On a move hill climbing problem neighbors are scored as moves
+ * and only accepted moves are made, in place on the current data.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class RandomizedHillClimbing extends OptimizationAlgorithm {
     
+    /**
+     * The number of accepted moves after which the totals and the
+     * current value are made again from scratch, so that rounding
+     * in floating point totals can't build up over a long run
+     */
+    private static final int RESYNC = 1 << 16;
+    
     /**
      * The current optimization data
      */
@@ -19,6 +28,16 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
      */
     private double curVal;
     
+    /**
+     * The running totals for scoring moves from the current data
+     */
+    private double[] totals;
+    
+    /**
+     * The number of moves accepted since the totals were last made
+     */
+    private int accepted;
+    
     /**
      * Make a new randomized hill climbing
      */
@@ -26,6 +45,9 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
         super(hcp);
         cur = hcp.random();
         curVal = hcp.value(cur);
+        if (hcp instanceof MoveHillClimbingProblem) {
+            totals = ((MoveHillClimbingProblem) hcp).totals(cur);
+        }
     }
 
     /**
@@ -33,6 +55,21 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
      */
     public double train() {
         HillClimbingProblem hcp = (HillClimbingProblem) getOptimizationProblem();
+        if (hcp instanceof MoveHillClimbingProblem) {
+            MoveHillClimbingProblem mhcp = (MoveHillClimbingProblem) hcp;
+            Move move = mhcp.move(cur);
+            double neighVal = mhcp.value(cur, totals, move);
+            if (neighVal > curVal) {
+                mhcp.apply(cur, totals, move);
+                curVal = neighVal;
+                if (++accepted == RESYNC) {
+                    accepted = 0;
+                    totals = mhcp.totals(cur);
+                    curVal = mhcp.value(cur);
+                }
+            }
+            return curVal;
+        }
         Instance neigh = hcp.neighbor(cur);
         double neighVal = hcp.value(neigh);
         if (neighVal > curVal) {
@@ -43,9 +80,14 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
     }
 
     /**
+     * On a move hill climbing problem this is a copy, since
+     * later moves change the current data in place
      * @see opt.OptimizationAlgorithm#getOptimalData()
      */
     public Instance getOptimal() {
+        if (getOptimizationProblem() instanceof MoveHillClimbingProblem) {
+            return (Instance) cur.copy();
+        }
         return cur;
     }
 
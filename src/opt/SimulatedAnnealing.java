@@ -5,12 +5,21 @@ import dist.Distribution;
 import shared.Instance;
 
 /**
- * A simulated annealing hill climbing algorithm
+ * A simulated annealing hill climbing algorithm.
+ * On a move hill climbing problem neighbors are scored as moves
+ * and only accepted moves are made, in place on the current data.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class SimulatedAnnealing extends OptimizationAlgorithm {
     
+    /**
+     * The number of accepted moves after which the totals and the
+     * current value are made again from scratch, so that rounding
+     * in floating point totals can't build up over a long run
+     */
+    private static final int RESYNC = 1 << 16;
+    
     /**
      * The current optimiation data
      */
@@ -31,6 +40,16 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
      */
     private double cooling;
     
+    /**
+     * The running totals for scoring moves from the current data
+     */
+    private double[] totals;
+    
+    /**
+     * The number of moves accepted since the totals were last made
+     */
+    private int accepted;
+    
     /**
      * Make a new simulated annealing hill climbing
      * @param t the starting temperature
@@ -43,6 +62,9 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
         this.cooling = cooling;
         this.cur = hcp.random();
         this.curVal = hcp.value(cur);
+        if (hcp instanceof MoveHillClimbingProblem) {
+            totals = ((MoveHillClimbingProblem) hcp).totals(cur);
+        }
     }
 
     /**
@@ -50,6 +72,23 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
      */
     public double train() {
         HillClimbingProblem p = (HillClimbingProblem) getOptimizationProblem();
+        if (p instanceof MoveHillClimbingProblem) {
+            MoveHillClimbingProblem mp = (MoveHillClimbingProblem) p;
+            Move move = mp.move(cur);
+            double neighVal = mp.value(cur, totals, move);
+            if (neighVal > curVal || Distribution.random.nextDouble() < 
+                    Math.exp((neighVal - curVal) / t)) {
+                mp.apply(cur, totals, move);
+                curVal = neighVal;
+                if (++accepted == RESYNC) {
+                    accepted = 0;
+                    totals = mp.totals(cur);
+                    curVal = mp.value(cur);
+                }
+            }
+            t *= cooling;
+            return curVal;
+        }
         Instance neigh = p.neighbor(cur);
         double neighVal = p.value(neigh);
         if (neighVal > curVal || Distribution.random.nextDouble() < 
@@ -62,9 +101,14 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
     }
 
     /**
+     * On a move hill climbing problem this is a copy, since
+     * later moves change the current data in place
      * @see opt.OptimizationAlgorithm#getOptimal()
      */
     public Instance getOptimal() {
+        if (getOptimizationProblem() instanceof MoveHillClimbingProblem) {
+            return (Instance) cur.copy();
+        }
         return cur;
     }
 
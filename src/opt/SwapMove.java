@@ -0,0 +1,58 @@
+package opt;
+
+import shared.Instance;
+import util.linalg.Vector;
+
+/**
+ * A move that swaps two values
+ * @version 1.0
+ */
+public class SwapMove implements Move {
+
+    /**
+     * The first index
+     */
+    private int i;
+
+    /**
+     * The second index
+     */
+    private int j;
+
+    /**
+     * Make a new swap move
+     * @param i the first index
+     * @param j the second index
+     */
+    public SwapMove(int i, int j) {
+        this.i = i;
+        this.j = j;
+    }
+
+    /**
+     * @see opt.Move#apply(shared.Instance)
+     */
+    public void apply(Instance d) {
+        Vector data = d.getData();
+        double temp = data.get(i);
+        data.set(i, data.get(j));
+        data.set(j, temp);
+    }
+
+    /**
+     * Get the first index
+     * @return the index
+     */
+    public int getFirst() {
+        return i;
+    }
+
+    /**
+     * Get the second index
+     * @return the index
+     */
+    public int getSecond() {
+        return j;
+    }
+
+}
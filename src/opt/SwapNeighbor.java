@@ -9,18 +9,23 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class SwapNeighbor implements NeighborFunction {
+public class SwapNeighbor implements MoveNeighborFunction {
     
     /**
      * @see opt.ga.MutationFunction#mutate(opt.OptimizationData)
      */
     public Instance neighbor(Instance d) {
         Instance cod = (Instance) d.copy();
-        int i = Distribution.random.nextInt(cod.getData().size());
-        int j = Distribution.random.nextInt(cod.getData().size());
-        double temp = cod.getContinuous(i);
-        cod.getData().set(i, cod.getContinuous(j));
-        cod.getData().set(j, temp);
+        move(cod).apply(cod);
         return cod;
     }
+
+    /**
+     * @see opt.MoveNeighborFunction#move(shared.Instance)
+     */
+    public Move move(Instance d) {
+        int i = Distribution.random.nextInt(d.getData().size());
+        int j = Distribution.random.nextInt(d.getData().size());
+        return new SwapMove(i, j);
+    }
 }
\ No newline at end of file
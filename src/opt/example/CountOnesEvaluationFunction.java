@@ -1,7 +1,11 @@
 package opt.example;
 
+import util.linalg.BitVector;
 import util.linalg.Vector;
-import opt.EvaluationFunction;
+import opt.ChangeOneMove;
+import opt.DeltaEvaluationFunction;
+import opt.Move;
+import opt.SwapMove;
 import shared.Instance;
 
 /**
@@ -9,12 +13,15 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class CountOnesEvaluationFunction implements EvaluationFunction {
+public class CountOnesEvaluationFunction implements DeltaEvaluationFunction {
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
         Vector data = d.getData();
+        if (data instanceof BitVector) {
+            return ((BitVector) data).cardinality();
+        }
         double val = 0;
         for (int i = 0; i < data.size(); i++) {
             if (data.get(i) == 1) {
@@ -23,4 +30,44 @@ public class CountOnesEvaluationFunction implements EvaluationFunction {
         }
         return val;
     }
+
+    /**
+     * The only total is the count itself
+     * @see opt.DeltaEvaluationFunction#totals(shared.Instance)
+     */
+    public double[] totals(Instance d) {
+        return new double[] { value(d) };
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#value(shared.Instance, double[], opt.Move)
+     */
+    public double value(Instance d, double[] totals, Move move) {
+        if (move instanceof ChangeOneMove) {
+            ChangeOneMove change = (ChangeOneMove) move;
+            double val = totals[0];
+            if (d.getData().get(change.getIndex()) == 1) {
+                val--;
+            }
+            if (change.getValue() == 1) {
+                val++;
+            }
+            return val;
+        } else if (move instanceof SwapMove) {
+            return totals[0];
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#update(shared.Instance, double[], opt.Move)
+     */
+    public boolean update(Instance d, double[] totals, Move move) {
+        double val = value(d, totals, move);
+        if (Double.isNaN(val)) {
+            return false;
+        }
+        totals[0] = val;
+        return true;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package opt.example;
 
+import util.linalg.BitVector;
 import util.linalg.Vector;
 import opt.EvaluationFunction;
 import shared.Instance;
@@ -15,6 +16,9 @@ public class FlipFlopEvaluationFunction implements EvaluationFunction {
      */
     public double value(Instance d) {
         Vector data = d.getData();
+        if (data instanceof BitVector) {
+            return value((BitVector) data);
+        }
         double val = 0;
         for (int i = 0; i < data.size() - 1; i++) {
             if (data.get(i) != data.get(i + 1)) {
@@ -23,4 +27,25 @@ public class FlipFlopEvaluationFunction implements EvaluationFunction {
         }
         return val;
     }
+
+    /**
+     * Count the flips in a bit string a word at a time
+     * @param data the bits
+     * @return the number of adjacent bits that differ
+     */
+    private double value(BitVector data) {
+        long[] words = data.getWords();
+        int pairs = data.size() - 1;
+        int val = 0;
+        for (int k = 0; k < words.length && 64 * k < pairs; k++) {
+            long next = k + 1 < words.length ? words[k + 1] : 0;
+            long flips = words[k] ^ ((words[k] >>> 1) | (next << 63));
+            int remaining = pairs - 64 * k;
+            if (remaining < 64) {
+                flips &= (1L << remaining) - 1;
+            }
+            val += Long.bitCount(flips);
+        }
+        return val;
+    }
 }
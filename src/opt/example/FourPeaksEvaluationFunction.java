@@ -1,15 +1,19 @@
 package opt.example;
 
 import util.linalg.Vector;
-import opt.EvaluationFunction;
+import opt.ChangeOneMove;
+import opt.DeltaEvaluationFunction;
+import opt.Move;
 import shared.Instance;
 
 /**
- * A four peaks evaluation function
+ * A four peaks evaluation function.  To score single
+ * changes it keeps the lengths of the run of ones at the
+ * head and the run of zeros at the tail.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class FourPeaksEvaluationFunction implements EvaluationFunction {
+public class FourPeaksEvaluationFunction implements DeltaEvaluationFunction {
     /**
      * The t value
      */
@@ -38,12 +42,114 @@ public class FourPeaksEvaluationFunction implements EvaluationFunction {
             i--;
         }
         int tail = data.size() - 1 - i;
+        return value(head, tail, data.size());
+    }
+
+    /**
+     * Score data from the lengths of its runs
+     * @param head the length of the run of ones at the head
+     * @param tail the length of the run of zeros at the tail
+     * @param n the size of the data
+     * @return the value
+     */
+    private double value(int head, int tail, int n) {
         int r = 0;
         if (head > t && tail > t) {
-            r = data.size();
+            r = n;
         }
         return Math.max(tail, head) + r;
     }
+
+    /**
+     * The totals are the head and tail run lengths
+     * @see opt.DeltaEvaluationFunction#totals(shared.Instance)
+     */
+    public double[] totals(Instance d) {
+        Vector data = d.getData();
+        int i = 0;
+        while (i < data.size() && data.get(i) == 1) {
+            i++;
+        }
+        int head = i;
+        i = data.size() - 1;
+        while (i >= 0 && data.get(i) == 0) {
+            i--;
+        }
+        return new double[] { head, data.size() - 1 - i };
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#value(shared.Instance, double[], opt.Move)
+     */
+    public double value(Instance d, double[] totals, Move move) {
+        if (!(move instanceof ChangeOneMove)) {
+            return Double.NaN;
+        }
+        ChangeOneMove change = (ChangeOneMove) move;
+        Vector data = d.getData();
+        return value(head(data, (int) totals[0], change), tail(data, (int) totals[1], change),
+            data.size());
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#update(shared.Instance, double[], opt.Move)
+     */
+    public boolean update(Instance d, double[] totals, Move move) {
+        if (!(move instanceof ChangeOneMove)) {
+            return false;
+        }
+        ChangeOneMove change = (ChangeOneMove) move;
+        Vector data = d.getData();
+        int head = head(data, (int) totals[0], change);
+        totals[1] = tail(data, (int) totals[1], change);
+        totals[0] = head;
+        return true;
+    }
+
+    /**
+     * Find the length of the run of ones at the head after a change
+     * @param data the data before the change
+     * @param head the length before the change
+     * @param change the change
+     * @return the length after
+     */
+    private int head(Vector data, int head, ChangeOneMove change) {
+        int k = change.getIndex();
+        if (k < head && change.getValue() != 1) {
+            return k;
+        } else if (k == head && change.getValue() == 1) {
+            // the run grows into the ones after it
+            int i = k + 1;
+            while (i < data.size() && data.get(i) == 1) {
+                i++;
+            }
+            return i;
+        }
+        return head;
+    }
+
+    /**
+     * Find the length of the run of zeros at the tail after a change
+     * @param data the data before the change
+     * @param tail the length before the change
+     * @param change the change
+     * @return the length after
+     */
+    private int tail(Vector data, int tail, ChangeOneMove change) {
+        int k = change.getIndex();
+        int start = data.size() - tail;
+        if (k >= start && change.getValue() != 0) {
+            return data.size() - 1 - k;
+        } else if (k == start - 1 && change.getValue() == 0) {
+            // the run grows into the zeros before it
+            int i = k - 1;
+            while (i >= 0 && data.get(i) == 0) {
+                i--;
+            }
+            return data.size() - 1 - i;
+        }
+        return tail;
+    }
     
     
 }
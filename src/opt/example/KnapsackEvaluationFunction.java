@@ -1,7 +1,10 @@
 package opt.example;
 
 import util.linalg.Vector;
-import opt.EvaluationFunction;
+import opt.ChangeOneMove;
+import opt.DeltaEvaluationFunction;
+import opt.Move;
+import opt.SwapMove;
 import shared.Instance;
 
 /**
@@ -9,7 +12,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class KnapsackEvaluationFunction implements EvaluationFunction {
+public class KnapsackEvaluationFunction implements DeltaEvaluationFunction {
     
     /**
      * The weights for the things that can be put in the sack
@@ -59,13 +62,84 @@ public class KnapsackEvaluationFunction implements EvaluationFunction {
             volume += volumes[i] * data.get(i);
             value += weights[i] * data.get(i);
         }
+        return value(volume, value);
+    }
+
+    /**
+     * Score a knapsack from its total volume and value
+     * @param volume the volume
+     * @param value the value
+     * @return the score
+     */
+    private double value(double volume, double value) {
         if (volume > maxVolume) {
             double smallNumber = 1E-10;
             return smallNumber*(maxVolumeSum - volume);
         } else {
             return value;
         }
-        
+    }
+
+    /**
+     * The totals are the volume and the value of the knapsack
+     * @see opt.DeltaEvaluationFunction#totals(shared.Instance)
+     */
+    public double[] totals(Instance d) {
+        Vector data = d.getData();
+        double volume = 0;
+        double value = 0;
+        for (int i = 0; i < data.size(); i++) {
+            volume += volumes[i] * data.get(i);
+            value += weights[i] * data.get(i);
+        }
+        return new double[] { volume, value };
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#value(shared.Instance, double[], opt.Move)
+     */
+    public double value(Instance d, double[] totals, Move move) {
+        double volume = change(d, move, volumes);
+        if (Double.isNaN(volume)) {
+            return Double.NaN;
+        }
+        return value(totals[0] + volume, totals[1] + change(d, move, weights));
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#update(shared.Instance, double[], opt.Move)
+     */
+    public boolean update(Instance d, double[] totals, Move move) {
+        double volume = change(d, move, volumes);
+        if (Double.isNaN(volume)) {
+            return false;
+        }
+        totals[0] += volume;
+        totals[1] += change(d, move, weights);
+        return true;
+    }
+
+    /**
+     * Find how much a weighted sum of the item counts changes with a move
+     * @param d the knapsack
+     * @param move the move
+     * @param amounts the amount for each item
+     * @return the change, or NaN if the move isn't one of the known kinds
+     */
+    private double change(Instance d, Move move, double[] amounts) {
+        Vector data = d.getData();
+        if (move instanceof ChangeOneMove) {
+            ChangeOneMove change = (ChangeOneMove) move;
+            int i = change.getIndex();
+            return amounts[i] * (change.getValue() - data.get(i));
+        } else if (move instanceof SwapMove) {
+            SwapMove swap = (SwapMove) move;
+            int i = swap.getFirst();
+            int j = swap.getSecond();
+            double difference = data.get(j) - data.get(i);
+            return amounts[i] * difference - amounts[j] * difference;
+        }
+        return Double.NaN;
     }
 
 }
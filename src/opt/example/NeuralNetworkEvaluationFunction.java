@@ -1,18 +1,33 @@
 package opt.example;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import util.linalg.DenseVector;
 import util.linalg.Vector;
 import func.nn.NeuralNetwork;
+import func.nn.dense.DenseNetwork;
 import opt.EvaluationFunction;
 import shared.DataSet;
 import shared.ErrorMeasure;
 import shared.Instance;
 
 /**
- * An evaluation function that uses a neural network
+ * An evaluation function that uses a neural network.
+ * Dense networks are evaluated on per thread copies without
+ * allocating anything per example, so many weight vectors can
+ * be scored at once, and a pool can be given to split the examples
+ * of a single evaluation across cores.  Other networks are shared
+ * state, so their evaluations are serialized.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class NeuralNetworkEvaluationFunction implements EvaluationFunction {
+    /**
+     * The number of examples evaluated by a single task
+     */
+    private static final int BLOCK_SIZE = 256;
+
     /**
      * The network
      */
@@ -25,7 +40,15 @@ public class NeuralNetworkEvaluationFunction implements EvaluationFunction {
      * The error measure
      */
     private ErrorMeasure measure;
-    
+    /**
+     * The copies of a dense network, one per thread
+     */
+    private ThreadLocal replicas;
+    /**
+     * The pool to split examples across, or null
+     */
+    private ForkJoinPool pool;
+
     /**
      * Make a new neural network evaluation function
      * @param network the network
@@ -37,12 +60,80 @@ public class NeuralNetworkEvaluationFunction implements EvaluationFunction {
         this.network = network;
         this.examples = examples;
         this.measure = measure;
+        if (network instanceof DenseNetwork) {
+            final DenseNetwork dense = (DenseNetwork) network;
+            replicas = new ThreadLocal() {
+                protected Object initialValue() {
+                    return new Replica(dense.copy());
+                }
+            };
+        }
+    }
+
+    /**
+     * Set the pool used to split the examples of a single
+     * evaluation across cores, only used with dense networks
+     * @param pool the pool, or null to evaluate on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     /**
      * @see opt.OptimizationProblem#value(opt.OptimizationData)
      */
     public double value(Instance d) {
+        if (replicas == null) {
+            return sharedValue(d);
+        }
+        Vector weights = d.getData();
+        int blocks = (examples.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        double[] errors = new double[blocks];
+        if (pool == null || blocks == 1) {
+            for (int i = 0; i < blocks; i++) {
+                errors[i] = error(weights, i);
+            }
+        } else {
+            pool.invoke(new ErrorTask(weights, errors, 0, blocks));
+        }
+        // sum the blocks in order so the result never depends on the pool
+        double error = 0;
+        for (int i = 0; i < blocks; i++) {
+            error += errors[i];
+        }
+        // the fitness is 1 / error
+        return 1 / error;
+    }
+
+    /**
+     * Calculate the error over a block of examples
+     * on this thread's copy of the network
+     * @param weights the weights to use
+     * @param block the block of examples
+     * @return the error
+     */
+    private double error(Vector weights, int block) {
+        Replica replica = (Replica) replicas.get();
+        replica.network.setWeights(weights);
+        int end = Math.min(examples.size(), (block + 1) * BLOCK_SIZE);
+        double error = 0;
+        for (int i = block * BLOCK_SIZE; i < end; i++) {
+            Instance example = examples.get(i);
+            replica.network.setInputValues(example.getData());
+            replica.network.run();
+            error += measure.value(replica.output, example);
+        }
+        return error;
+    }
+
+    /**
+     * Evaluate on the shared network, the network is shared state
+     * so calls are serialized to keep this safe under parallel
+     * population scoring
+     * @param d the weights
+     * @return the value
+     */
+    private synchronized double sharedValue(Instance d) {
         // set the links
         Vector weights = d.getData();
         network.setWeights(weights);
@@ -57,4 +148,66 @@ public class NeuralNetworkEvaluationFunction implements EvaluationFunction {
         return 1 / error;
     }
 
+    /**
+     * A thread's copy of a dense network along with
+     * an instance that views its output values
+     */
+    private static class Replica {
+        /** The network */
+        private DenseNetwork network;
+        /** The output values of the network */
+        private Instance output;
+
+        /**
+         * Make a new replica
+         * @param network the network copy
+         */
+        public Replica(DenseNetwork network) {
+            this.network = network;
+            this.output = new Instance(new DenseVector(network.getOutputArray()));
+        }
+    }
+
+    /**
+     * A task that calculates the error over a range of
+     * blocks, splitting it in half until it is a single block
+     */
+    private class ErrorTask extends RecursiveAction {
+        /** The weights */
+        private Vector weights;
+        /** The error of each block */
+        private double[] errors;
+        /** The first block inclusive */
+        private int start;
+        /** The last block exclusive */
+        private int end;
+
+        /**
+         * Make a new error task
+         * @param weights the weights
+         * @param errors the error of each block
+         * @param start the first block inclusive
+         * @param end the last block exclusive
+         */
+        public ErrorTask(Vector weights, double[] errors, int start, int end) {
+            this.weights = weights;
+            this.errors = errors;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start == 1) {
+                errors[start] = error(weights, start);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new ErrorTask(weights, errors, start, mid),
+                new ErrorTask(weights, errors, mid, end));
+        }
+    }
+
 }
@@ -57,7 +57,7 @@ public class NeuralNetworkOptimizationProblem implements HillClimbingProblem, Ge
         crossover = new UniformCrossOver();
         neighbor = new ContinuousAddOneNeighbor();
         mutate = new ContinuousAddOneMutation();
-        dist = new NeuralNetworkWeightDistribution(network.getLinks().size());
+        dist = new NeuralNetworkWeightDistribution(network.getWeightCount());
     }
 
     /**
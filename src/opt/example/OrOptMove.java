@@ -0,0 +1,95 @@
+package opt.example;
+
+import opt.Move;
+import shared.Instance;
+import util.linalg.Vector;
+
+/**
+ * An or-opt move on a route, which takes a short run of
+ * cities out of the route and puts it back in somewhere else
+ * @version 1.0
+ */
+public class OrOptMove implements Move {
+
+    /**
+     * The first position of the run
+     */
+    private int start;
+
+    /**
+     * The number of cities in the run
+     */
+    private int length;
+
+    /**
+     * The position the run is put after
+     */
+    private int after;
+
+    /**
+     * Make a new or-opt move
+     * @param start the first position of the run
+     * @param length the number of cities in the run, which
+     * must not go past the end of the route
+     * @param after the position to put the run after, which must
+     * be outside the run and not the position just before it
+     */
+    public OrOptMove(int start, int length, int after) {
+        this.start = start;
+        this.length = length;
+        this.after = after;
+    }
+
+    /**
+     * @see opt.Move#apply(shared.Instance)
+     */
+    public void apply(Instance d) {
+        Vector data = d.getData();
+        double[] run = new double[length];
+        for (int k = 0; k < length; k++) {
+            run[k] = data.get(start + k);
+        }
+        if (after > start) {
+            // shift the cities between down over the run
+            for (int k = start; k <= after - length; k++) {
+                data.set(k, data.get(k + length));
+            }
+            for (int k = 0; k < length; k++) {
+                data.set(after - length + 1 + k, run[k]);
+            }
+        } else {
+            // shift the cities between up over the run
+            for (int k = start + length - 1; k > after + length; k--) {
+                data.set(k, data.get(k - length));
+            }
+            for (int k = 0; k < length; k++) {
+                data.set(after + 1 + k, run[k]);
+            }
+        }
+    }
+
+    /**
+     * Get the first position of the run
+     * @return the position
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Get the number of cities in the run
+     * @return the length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get the position the run is put after
+     * @return the position
+     */
+    public int getAfter() {
+        return after;
+    }
+
+}
@@ -0,0 +1,79 @@
+package opt.example;
+
+import dist.Distribution;
+import opt.Move;
+import shared.Instance;
+
+/**
+ * An or-opt neighbor function for routes.  A run of up to a few
+ * cities starting at a random position is moved to just before or
+ * after one of its first city's nearest neighbors.
+ * @version 1.0
+ */
+public class OrOptNeighbor extends TravelingSalesmanNeighbor {
+
+    /**
+     * The number of times to try the neighbor lists
+     * before picking a random place for the run
+     */
+    private static final int TRIES = 10;
+
+    /**
+     * The longest run moved
+     */
+    private int maxLength;
+
+    /**
+     * Make a new or-opt neighbor function
+     * @param eval the evaluation function, whose neighbor lists are
+     * used if they have been built, otherwise moves are picked at random
+     * @param maxLength the longest run to move
+     */
+    public OrOptNeighbor(TravelingSalesmanEvaluationFunction eval, int maxLength) {
+        super(eval);
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Make a new or-opt neighbor function moving runs of up to three cities
+     * @param eval the evaluation function
+     */
+    public OrOptNeighbor(TravelingSalesmanEvaluationFunction eval) {
+        this(eval, 3);
+    }
+
+    /**
+     * @see opt.MoveNeighborFunction#move(shared.Instance)
+     */
+    public Move move(Instance d) {
+        int n = d.size();
+        if (n < 4) {
+            // every move gives the same tour
+            return new TwoOptMove(0, 0);
+        }
+        int length = 1 + Distribution.random.nextInt(Math.min(maxLength, n - 3));
+        int start = Distribution.random.nextInt(n - length + 1);
+        int end = start + length - 1;
+        int before = (start - 1 + n) % n;
+        int[] near = getEvaluationFunction().getNeighbors(d.getDiscrete(start));
+        if (near != null) {
+            for (int t = 0; t < TRIES; t++) {
+                // put the run after the neighbor, joining it to the
+                // first city, or before it, joining it to the last
+                int p = position(d, near[Distribution.random.nextInt(near.length)]);
+                if (Distribution.random.nextBoolean()) {
+                    p = (p - 1 + n) % n;
+                }
+                if ((p < start || p > end) && p != before) {
+                    return new OrOptMove(start, length, p);
+                }
+            }
+        }
+        int p;
+        do {
+            p = Distribution.random.nextInt(n);
+        } while ((p >= start && p <= end) || p == before);
+        return new OrOptMove(start, length, p);
+    }
+
+}
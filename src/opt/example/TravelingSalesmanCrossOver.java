@@ -7,7 +7,10 @@ import shared.Instance;
 
 /**
  * A cross over function for a traveling
- * salesman problem, based on
+ * salesman problem, based on the greedy crossover.
+ * When both parents' next cities have been used the child
+ * goes to the nearest unused city in the neighbor lists,
+ * if they have been built, and otherwise a random one.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -37,7 +40,7 @@ public class TravelingSalesmanCrossOver implements CrossoverFunction {
             nextb[b.getDiscrete(i)] = b.getDiscrete(i+1);
         }
         nexta[a.getDiscrete(a.size() - 1)] = a.getDiscrete(0);
-        nexta[b.getDiscrete(b.size() - 1)] = b.getDiscrete(0);
+        nextb[b.getDiscrete(b.size() - 1)] = b.getDiscrete(0);
         boolean[] visited = new boolean[a.size()];
         int[] child = new int[a.size()];
         child[0] = Distribution.random.nextInt(a.size());
@@ -58,9 +61,16 @@ public class TravelingSalesmanCrossOver implements CrossoverFunction {
                     next = nb;
                 }
             } else {
-                do {
+                // the nearest unvisited neighbor, if any are in the list
+                int[] near = eval.getNeighbors(cur);
+                for (int j = 0; near != null && j < near.length && next == -1; j++) {
+                    if (!visited[near[j]]) {
+                        next = near[j];
+                    }
+                }
+                while (next == -1 || visited[next]) {
                     next = Distribution.random.nextInt(a.size());
-                } while (visited[next]);
+                }
             }
             child[i+1] = next;
             visited[next] = true;
@@ -3,32 +3,89 @@ package opt.example;
 import opt.EvaluationFunction;
 
 /**
- * An evaluation function for the traveling salesman problem
+ * An evaluation function for the traveling salesman problem.
+ * The distances are kept packed in a single array, row i of the
+ * lower triangle starting at i*(i-1)/2, unless there are too many
+ * cities for that, in which case they are computed from the
+ * coordinates when asked for.  Lists of each city's nearest
+ * neighbors can be built for neighbor functions to draw moves from.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public abstract class TravelingSalesmanEvaluationFunction implements EvaluationFunction {
     /**
-     * The distance between city i and j
+     * The most cities for which distances are stored
      */
-    private double[][] distances;
+    public static final int MAX_STORED = 4096;
+    /**
+     * The x coordinates of the cities
+     */
+    private double[] x;
+    /**
+     * The y coordinates of the cities
+     */
+    private double[] y;
+    /**
+     * The packed distances between cities,
+     * or null if they are computed when needed
+     */
+    private double[] distances;
+    /**
+     * The nearest neighbors of each city, closest first,
+     * or null if they haven't been built
+     */
+    private int[][] neighbors;
     /**
      * Make a new traveling salesman  evaluation function
      * @param points the points at which the cities are located
      */
     public TravelingSalesmanEvaluationFunction(double[][] points) {
-        distances = new double[points.length][];
+        this(points, points.length <= MAX_STORED);
+    }
+    
+    /**
+     * Make a new traveling salesman evaluation function
+     * @param points the points at which the cities are located
+     * @param store whether to store the distances or
+     * compute them each time they are needed
+     * @throws IllegalArgumentException if the distances
+     * are to be stored but there are too many to fit in an array
+     */
+    public TravelingSalesmanEvaluationFunction(double[][] points, boolean store) {
+        x = new double[points.length];
+        y = new double[points.length];
         for (int i = 0; i < points.length; i++) {
-            distances[i] = new double[i];
-            for (int j = 0; j < i; j++) {
-                double[] a = points[i];
-                double[] b = points[j];
-                distances[i][j] = Math.sqrt(Math.pow(a[0] - b[0], 2)
-                    + Math.pow(a[1] - b[1], 2));
+            x[i] = points[i][0];
+            y[i] = points[i][1];
+        }
+        if (store) {
+            long size = (long) points.length * (points.length - 1) / 2;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many cities to store "
+                    + size + " distances");
+            }
+            distances = new double[(int) size];
+            int k = 0;
+            for (int i = 0; i < points.length; i++) {
+                for (int j = 0; j < i; j++) {
+                    distances[k++] = distance(i, j);
+                }
             }
         }
     }
     
+    /**
+     * Compute the distance between two cities
+     * @param i the first city
+     * @param j the second
+     * @return the distance
+     */
+    private double distance(int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
     /**
      * Get the distance between two points
      * @param i the first point
@@ -36,12 +93,69 @@ public abstract class TravelingSalesmanEvaluationFunction implements EvaluationF
      * @return the distance
      */
     public double getDistance(int i, int j) {
-        if (i==j) {
-            return 0;
+        if (distances == null) {
+            return distance(i, j);
+        } else if (i > j) {
+            return distances[(int) ((long) i * (i - 1) / 2) + j];
+        } else if (i < j) {
+            return distances[(int) ((long) j * (j - 1) / 2) + i];
         } else {
-            int a = Math.max(i,j);
-            int b = Math.min(i,j);
-            return distances[a][b];
+            return 0;
         }
     }
+    
+    /**
+     * Get the number of cities
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return x.length;
+    }
+    
+    /**
+     * Build the lists of each city's nearest neighbors
+     * @param k the number of neighbors to keep for each city
+     */
+    public void buildNeighborLists(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+        int n = x.length;
+        k = Math.min(k, n - 1);
+        int[][] lists = new int[n][k];
+        double[] best = new double[k];
+        for (int i = 0; i < n; i++) {
+            int[] list = lists[i];
+            int count = 0;
+            for (int j = 0; j < n; j++) {
+                if (j == i) {
+                    continue;
+                }
+                double d = getDistance(i, j);
+                if (count == k && d >= best[k - 1]) {
+                    continue;
+                }
+                // insert into the sorted list, dropping the farthest
+                int p = count < k ? count++ : k - 1;
+                while (p > 0 && best[p - 1] > d) {
+                    best[p] = best[p - 1];
+                    list[p] = list[p - 1];
+                    p--;
+                }
+                best[p] = d;
+                list[p] = j;
+            }
+        }
+        neighbors = lists;
+    }
+    
+    /**
+     * Get the nearest neighbors of a city
+     * @param i the city
+     * @return the neighbors closest first,
+     * or null if the lists haven't been built
+     */
+    public int[] getNeighbors(int i) {
+        return neighbors == null ? null : neighbors[i];
+    }
 }
@@ -0,0 +1,75 @@
+package opt.example;
+
+import opt.MoveNeighborFunction;
+import shared.Instance;
+
+/**
+ * A base for neighbor functions on routes that draw their
+ * moves from the cities' nearest neighbor lists.  Finding
+ * where a neighbor is in the route uses a table of positions
+ * kept for each thread; a position is checked against the route
+ * before it is used and the table is rebuilt if it is out of date,
+ * which only happens after the route has changed.
+ * @version 1.0
+ */
+public abstract class TravelingSalesmanNeighbor implements MoveNeighborFunction {
+
+    /**
+     * The evaluation function with the distances and neighbor lists
+     */
+    private TravelingSalesmanEvaluationFunction eval;
+
+    /**
+     * The position of each city in the last route seen by each thread
+     */
+    private ThreadLocal positions = new ThreadLocal();
+
+    /**
+     * Make a new traveling salesman neighbor function
+     * @param eval the evaluation function, whose neighbor lists are
+     * used if they have been built, otherwise moves are picked at random
+     */
+    public TravelingSalesmanNeighbor(TravelingSalesmanEvaluationFunction eval) {
+        this.eval = eval;
+    }
+
+    /**
+     * @see opt.NeighborFunction#neighbor(shared.Instance)
+     */
+    public Instance neighbor(Instance d) {
+        Instance cod = (Instance) d.copy();
+        move(cod).apply(cod);
+        return cod;
+    }
+
+    /**
+     * Get the evaluation function
+     * @return the evaluation function
+     */
+    public TravelingSalesmanEvaluationFunction getEvaluationFunction() {
+        return eval;
+    }
+
+    /**
+     * Find the position of a city in a route
+     * @param d the route
+     * @param city the city
+     * @return the position
+     */
+    protected int position(Instance d, int city) {
+        int[] table = (int[]) positions.get();
+        if (table == null || table.length != d.size()) {
+            table = new int[d.size()];
+            positions.set(table);
+        }
+        int p = table[city];
+        if (d.getDiscrete(p) != city) {
+            for (int i = 0; i < table.length; i++) {
+                table[d.getDiscrete(i)] = i;
+            }
+            p = table[city];
+        }
+        return p;
+    }
+
+}
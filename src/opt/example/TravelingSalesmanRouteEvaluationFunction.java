@@ -1,16 +1,21 @@
 package opt.example;
 
+import opt.DeltaEvaluationFunction;
+import opt.Move;
+import opt.SwapMove;
 import shared.Instance;
 
 /**
  * An implementation of the traveling salesman problem
  * where the encoding used is a permutation of [0, ..., n]
  * where there are n+1 cities.  That is the encoding
- * is just the path to take.
+ * is just the path to take.  Swaps, 2-opt and or-opt
+ * moves are scored from the few edges they change.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanEvaluationFunction {
+public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanEvaluationFunction
+        implements DeltaEvaluationFunction {
 
     /**
      * Make a new route evaluation function
@@ -20,6 +25,15 @@ public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanE
         super(points);
     }
 
+    /**
+     * Make a new route evaluation function
+     * @param points the points of the cities
+     * @param store whether to store the distances
+     */
+    public TravelingSalesmanRouteEvaluationFunction(double[][] points, boolean store) {
+        super(points, store);
+    }
+
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
@@ -32,5 +46,141 @@ public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanE
         return 1/distance;
     }
 
+    /**
+     * The only total is the length of the route
+     * @see opt.DeltaEvaluationFunction#totals(shared.Instance)
+     */
+    public double[] totals(Instance d) {
+        return new double[] { 1/value(d) };
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#value(shared.Instance, double[], opt.Move)
+     */
+    public double value(Instance d, double[] totals, Move move) {
+        return 1/(totals[0] + change(d, move));
+    }
+
+    /**
+     * @see opt.DeltaEvaluationFunction#update(shared.Instance, double[], opt.Move)
+     */
+    public boolean update(Instance d, double[] totals, Move move) {
+        double change = change(d, move);
+        if (Double.isNaN(change)) {
+            return false;
+        }
+        totals[0] += change;
+        return true;
+    }
+
+    /**
+     * Find how much the length of the route changes with a move
+     * @param d the route
+     * @param move the move
+     * @return the change in length, or NaN if the
+     * move isn't one of the known kinds
+     */
+    private double change(Instance d, Move move) {
+        if (move instanceof SwapMove) {
+            return change(d, (SwapMove) move);
+        } else if (move instanceof TwoOptMove) {
+            return change(d, (TwoOptMove) move);
+        } else if (move instanceof OrOptMove) {
+            return change(d, (OrOptMove) move);
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Find how much the length of the route changes with a 2-opt move,
+     * which replaces the edges on either side of the reversed part
+     * @param d the route
+     * @param move the move
+     * @return the change in length
+     */
+    private double change(Instance d, TwoOptMove move) {
+        int n = d.size();
+        int i = move.getStart();
+        int j = move.getEnd();
+        int before = (i + n - 1) % n;
+        int after = (j + 1) % n;
+        if (i == j || before == j || before == after) {
+            return 0;
+        }
+        int a = d.getDiscrete(before);
+        int b = d.getDiscrete(i);
+        int c = d.getDiscrete(j);
+        int e = d.getDiscrete(after);
+        return getDistance(a, c) + getDistance(b, e)
+            - getDistance(a, b) - getDistance(c, e);
+    }
+
+    /**
+     * Find how much the length of the route changes with an or-opt move,
+     * which takes out the edges at either end of the run and the edge
+     * it is put into, and adds three new ones
+     * @param d the route
+     * @param move the move
+     * @return the change in length
+     */
+    private double change(Instance d, OrOptMove move) {
+        int n = d.size();
+        int start = move.getStart();
+        int end = start + move.getLength() - 1;
+        int p = move.getAfter();
+        int first = d.getDiscrete(start);
+        int last = d.getDiscrete(end);
+        int before = d.getDiscrete((start + n - 1) % n);
+        int after = d.getDiscrete((end + 1) % n);
+        int left = d.getDiscrete(p);
+        int right = d.getDiscrete((p + 1) % n);
+        return getDistance(before, after) + getDistance(left, first) + getDistance(last, right)
+            - getDistance(before, first) - getDistance(last, after) - getDistance(left, right);
+    }
+
+    /**
+     * Find how much the length of the route changes with a swap
+     * @param d the route
+     * @param swap the swap
+     * @return the change in length
+     */
+    private double change(Instance d, SwapMove swap) {
+        int n = d.size();
+        int i = swap.getFirst();
+        int j = swap.getSecond();
+        if (i == j) {
+            return 0;
+        }
+        // edge p joins positions p and p + 1, each of the
+        // edges touching i or j is only counted once
+        int beforeI = (i + n - 1) % n;
+        int beforeJ = (j + n - 1) % n;
+        double change = edgeChange(d, beforeI, i, j) + edgeChange(d, i, i, j);
+        if (beforeJ != beforeI && beforeJ != i) {
+            change += edgeChange(d, beforeJ, i, j);
+        }
+        if (j != beforeI && j != i) {
+            change += edgeChange(d, j, i, j);
+        }
+        return change;
+    }
+
+    /**
+     * Find how much the length of one edge changes
+     * when the cities at two positions are swapped
+     * @param d the route
+     * @param p the position the edge starts at
+     * @param i the first swapped position
+     * @param j the second swapped position
+     * @return the change in length
+     */
+    private double edgeChange(Instance d, int p, int i, int j) {
+        int q = (p + 1) % d.size();
+        int sp = p == i ? j : p == j ? i : p;
+        int sq = q == i ? j : q == j ? i : q;
+        return getDistance(d.getDiscrete(sp), d.getDiscrete(sq))
+            - getDistance(d.getDiscrete(p), d.getDiscrete(q));
+    }
+
 
 }
@@ -20,6 +20,15 @@ public class TravelingSalesmanSortEvaluationFunction extends TravelingSalesmanEv
         super(points);
     }
 
+    /**
+     * Make a new traveling salesman evaluation function
+     * @param points the points at which the cities are located
+     * @param store whether to store the distances
+     */
+    public TravelingSalesmanSortEvaluationFunction(double[][] points, boolean store) {
+        super(points, store);
+    }
+
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
@@ -0,0 +1,76 @@
+package opt.example;
+
+import opt.Move;
+import shared.Instance;
+import util.linalg.Vector;
+
+/**
+ * A 2-opt move on a route, which reverses the part of the
+ * route between two positions.  Since a route is a cycle,
+ * reversing the rest of the route instead gives the same
+ * tour, so whichever part is shorter is reversed.
+ * @version 1.0
+ */
+public class TwoOptMove implements Move {
+
+    /**
+     * The first position reversed
+     */
+    private int start;
+
+    /**
+     * The last position reversed
+     */
+    private int end;
+
+    /**
+     * Make a new 2-opt move
+     * @param start the first position reversed
+     * @param end the last position reversed, at least start
+     */
+    public TwoOptMove(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @see opt.Move#apply(shared.Instance)
+     */
+    public void apply(Instance d) {
+        Vector data = d.getData();
+        int n = data.size();
+        int i = start;
+        int j = end;
+        int length = j - i + 1;
+        if (2 * length > n) {
+            // reverse the rest of the route, which wraps around
+            i = end + 1;
+            j = start - 1 + n;
+            length = n - length;
+        }
+        for (int k = 0; k < length / 2; k++) {
+            int a = (i + k) % n;
+            int b = (j - k) % n;
+            double temp = data.get(a);
+            data.set(a, data.get(b));
+            data.set(b, temp);
+        }
+    }
+
+    /**
+     * Get the first position reversed
+     * @return the position
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Get the last position reversed
+     * @return the position
+     */
+    public int getEnd() {
+        return end;
+    }
+
+}
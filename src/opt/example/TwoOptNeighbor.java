@@ -0,0 +1,47 @@
+package opt.example;
+
+import dist.Distribution;
+import opt.Move;
+import shared.Instance;
+
+/**
+ * A 2-opt neighbor function for routes.  A random city is joined to
+ * one of its nearest neighbors by reversing the part of the route
+ * between them.
+ * @version 1.0
+ */
+public class TwoOptNeighbor extends TravelingSalesmanNeighbor {
+
+    /**
+     * Make a new 2-opt neighbor function
+     * @param eval the evaluation function, whose neighbor lists are
+     * used if they have been built, otherwise moves are picked at random
+     */
+    public TwoOptNeighbor(TravelingSalesmanEvaluationFunction eval) {
+        super(eval);
+    }
+
+    /**
+     * @see opt.MoveNeighborFunction#move(shared.Instance)
+     */
+    public Move move(Instance d) {
+        int n = d.size();
+        int i = Distribution.random.nextInt(n);
+        int[] near = getEvaluationFunction().getNeighbors(d.getDiscrete(i));
+        int j;
+        if (near == null) {
+            j = Distribution.random.nextInt(n);
+        } else {
+            j = position(d, near[Distribution.random.nextInt(near.length)]);
+        }
+        // bring the city at j next to the city at i
+        if (j > i) {
+            return new TwoOptMove(i + 1, j);
+        } else if (j < i) {
+            return new TwoOptMove(j + 1, i);
+        } else {
+            return new TwoOptMove(i, i);
+        }
+    }
+
+}
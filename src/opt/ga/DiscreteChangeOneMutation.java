@@ -3,6 +3,9 @@ package opt.ga;
 import dist.Distribution;
 
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.IntVector;
+import util.linalg.Vector;
 
 /**
  * A mutation function for changing a single value
@@ -28,7 +31,15 @@ public class DiscreteChangeOneMutation implements MutationFunction {
      */
     public void mutate(Instance d) {
         int i = Distribution.random.nextInt(d.size());
-        d.getData().set(i, Distribution.random.nextInt(ranges[i]));
+        int value = Distribution.random.nextInt(ranges[i]);
+        Vector data = d.getData();
+        if (data instanceof BitVector) {
+            ((BitVector) data).setBit(i, value == 1);
+        } else if (data instanceof IntVector) {
+            ((IntVector) data).setInt(i, value);
+        } else {
+            data.set(i, value);
+        }
     }
 
 }
@@ -0,0 +1,304 @@
+package opt.ga;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import opt.OptimizationAlgorithm;
+import shared.Instance;
+
+/**
+ * An island model genetic algorithm.  The population is split into
+ * several islands, each a standard genetic algorithm of its own, and
+ * the islands are evolved independently, one task per island, on a
+ * fork join pool.  Every few generations each island sends copies of
+ * its best members to the next island around a ring through a lock
+ * free queue; whatever has arrived in an island's own queue replaces
+ * its weakest members.  The islands never wait for each other, so
+ * when they run in parallel which migrants arrive when depends on
+ * timing.  The problem's value, mate and mutate functions
+ * must be thread safe.
+ * @version 1.0
+ */
+public class IslandGeneticAlgorithm extends OptimizationAlgorithm {
+
+    /**
+     * The islands
+     */
+    private StandardGeneticAlgorithm[] islands;
+
+    /**
+     * The migrants waiting to arrive at each island
+     */
+    private ConcurrentLinkedQueue[] arrivals;
+
+    /**
+     * The number of generations each island has run
+     */
+    private int[] generations;
+
+    /**
+     * The average value of each island's last generation
+     */
+    private double[] averages;
+
+    /**
+     * The number of generations between migrations
+     */
+    private int migrationInterval;
+
+    /**
+     * The number of members each island sends when migrating
+     */
+    private int migrants;
+
+    /**
+     * The pool to run the islands on, or null
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Make a new island genetic algorithm
+     * @param islandCount the number of islands
+     * @param populationSize the size of each island's population
+     * @param toMate the number to mate on each island each generation
+     * @param toMutate the number to mutate on each island each generation
+     * @param gap the problem to solve
+     * @param migrationInterval the number of generations between migrations
+     * @param migrants the number of members sent when migrating
+     * @param pool the pool to run the islands on, or null to run them
+     * one after another on the calling thread
+     */
+    public IslandGeneticAlgorithm(int islandCount, int populationSize, int toMate, int toMutate,
+            GeneticAlgorithmProblem gap, int migrationInterval, int migrants, ForkJoinPool pool) {
+        super(gap);
+        if (islandCount < 1 || migrationInterval < 1 || migrants < 0 || migrants > populationSize) {
+            throw new IllegalArgumentException();
+        }
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        this.pool = pool;
+        islands = new StandardGeneticAlgorithm[islandCount];
+        arrivals = new ConcurrentLinkedQueue[islandCount];
+        for (int i = 0; i < islandCount; i++) {
+            islands[i] = new StandardGeneticAlgorithm(populationSize, toMate, toMutate, gap);
+            arrivals[i] = new ConcurrentLinkedQueue();
+        }
+        generations = new int[islandCount];
+        averages = new double[islandCount];
+    }
+
+    /**
+     * Make a new island genetic algorithm on the common pool
+     * @param islandCount the number of islands
+     * @param populationSize the size of each island's population
+     * @param toMate the number to mate on each island each generation
+     * @param toMutate the number to mutate on each island each generation
+     * @param gap the problem to solve
+     * @param migrationInterval the number of generations between migrations
+     * @param migrants the number of members sent when migrating
+     */
+    public IslandGeneticAlgorithm(int islandCount, int populationSize, int toMate, int toMutate,
+            GeneticAlgorithmProblem gap, int migrationInterval, int migrants) {
+        this(islandCount, populationSize, toMate, toMutate, gap,
+            migrationInterval, migrants, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Seed the islands' random number generators, island i
+     * with seed + i.  Each island selects from its own generator,
+     * but as with the standard genetic algorithm the operators
+     * draw from dist.Distribution.random as well.
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        for (int i = 0; i < islands.length; i++) {
+            islands[i].setSeed(seed + i);
+        }
+    }
+
+    /**
+     * Set the pool the islands run on
+     * @param pool the pool, or null to run them on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Run one generation on every island
+     * @see shared.Trainer#train()
+     */
+    public double train() {
+        return train(1);
+    }
+
+    /**
+     * Run a number of generations on every island.  Each
+     * island runs all of them in a single task, so larger
+     * counts mean less time spent handing out work.
+     * @param count the number of generations
+     * @return the average value over the islands' last generations
+     */
+    public double train(int count) {
+        if (pool == null || islands.length == 1) {
+            for (int i = 0; i < islands.length; i++) {
+                evolve(i, count);
+            }
+        } else {
+            pool.invoke(new IslandTask(0, islands.length, count));
+        }
+        double sum = 0;
+        for (int i = 0; i < averages.length; i++) {
+            sum += averages[i];
+        }
+        return sum / averages.length;
+    }
+
+    /**
+     * Run a number of generations on one island
+     * @param island the island
+     * @param count the number of generations
+     */
+    private void evolve(int island, int count) {
+        StandardGeneticAlgorithm ga = islands[island];
+        for (int g = 0; g < count; g++) {
+            immigrate(island);
+            averages[island] = ga.train();
+            generations[island]++;
+            if (migrants > 0 && generations[island] % migrationInterval == 0) {
+                emigrate(island);
+            }
+        }
+    }
+
+    /**
+     * Send copies of an island's best members to the next island
+     * @param island the island
+     */
+    private void emigrate(int island) {
+        Instance[] population = islands[island].getPopulation();
+        double[] values = islands[island].getValues();
+        boolean[] sent = new boolean[population.length];
+        ConcurrentLinkedQueue queue = arrivals[(island + 1) % islands.length];
+        for (int m = 0; m < migrants; m++) {
+            int best = -1;
+            for (int i = 0; i < population.length; i++) {
+                if (!sent[i] && (best == -1 || values[i] > values[best])) {
+                    best = i;
+                }
+            }
+            sent[best] = true;
+            queue.offer(new Migrant((Instance) population[best].copy(), values[best]));
+        }
+    }
+
+    /**
+     * Let the migrants waiting for an island replace its weakest
+     * members, as long as they are better than them
+     * @param island the island
+     */
+    private void immigrate(int island) {
+        Instance[] population = islands[island].getPopulation();
+        double[] values = islands[island].getValues();
+        Migrant migrant;
+        while ((migrant = (Migrant) arrivals[island].poll()) != null) {
+            int worst = 0;
+            for (int i = 1; i < values.length; i++) {
+                if (values[i] < values[worst]) {
+                    worst = i;
+                }
+            }
+            if (migrant.value > values[worst]) {
+                population[worst] = migrant.instance;
+                values[worst] = migrant.value;
+            }
+        }
+    }
+
+    /**
+     * Get the islands
+     * @return the islands
+     */
+    public StandardGeneticAlgorithm[] getIslands() {
+        return islands;
+    }
+
+    /**
+     * @see opt.OptimizationAlgorithm#getOptimal()
+     */
+    public Instance getOptimal() {
+        Instance best = null;
+        double bestVal = 0;
+        for (int i = 0; i < islands.length; i++) {
+            Instance[] population = islands[i].getPopulation();
+            double[] values = islands[i].getValues();
+            for (int j = 0; j < population.length; j++) {
+                if (best == null || values[j] > bestVal) {
+                    bestVal = values[j];
+                    best = population[j];
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A member of a population on its way to another island
+     */
+    private static class Migrant {
+        /** The member */
+        private Instance instance;
+        /** Its value */
+        private double value;
+
+        /**
+         * Make a new migrant
+         * @param instance the member
+         * @param value its value
+         */
+        public Migrant(Instance instance, double value) {
+            this.instance = instance;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A task that evolves a range of islands, splitting
+     * it in half until it is a single island
+     */
+    private class IslandTask extends RecursiveAction {
+        /** The first island inclusive */
+        private int start;
+        /** The last island exclusive */
+        private int end;
+        /** The number of generations */
+        private int count;
+
+        /**
+         * Make a new island task
+         * @param start the first island inclusive
+         * @param end the last island exclusive
+         * @param count the number of generations
+         */
+        public IslandTask(int start, int end, int count) {
+            this.start = start;
+            this.end = end;
+            this.count = count;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start == 1) {
+                evolve(start, count);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new IslandTask(start, mid, count),
+                new IslandTask(mid, end, count));
+        }
+    }
+
+}
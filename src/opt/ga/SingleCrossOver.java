@@ -3,6 +3,8 @@ package opt.ga;
 import dist.Distribution;
 
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.IntVector;
 
 /**
  * A single point cross over function
@@ -15,6 +17,11 @@ public class SingleCrossOver implements CrossoverFunction {
      * @see opt.CrossOverFunction#mate(opt.OptimizationData, opt.OptimizationData)
      */
     public Instance mate(Instance a, Instance b) {
+        if (a.getData() instanceof BitVector && b.getData() instanceof BitVector) {
+            return mate((BitVector) a.getData(), (BitVector) b.getData());
+        } else if (a.getData() instanceof IntVector && b.getData() instanceof IntVector) {
+            return mate((IntVector) a.getData(), (IntVector) b.getData());
+        }
         double[] newData = new double[a.size()];
         int point = Distribution.random.nextInt(newData.length + 1);
         for (int i = 0; i < newData.length; i++) {
@@ -27,4 +34,40 @@ public class SingleCrossOver implements CrossoverFunction {
         return new Instance(newData);
     }
 
+    /**
+     * Mate two bit strings a word at a time
+     * @param a the first parent
+     * @param b the second parent
+     * @return the child
+     */
+    private Instance mate(BitVector a, BitVector b) {
+        long[] wa = a.getWords();
+        long[] wb = b.getWords();
+        long[] child = new long[wa.length];
+        int point = Distribution.random.nextInt(a.size() + 1);
+        int word = point >>> 6;
+        System.arraycopy(wb, 0, child, 0, word);
+        System.arraycopy(wa, word, child, word, wa.length - word);
+        if (word < child.length) {
+            // the low bits of the split word come from b
+            long low = (1L << (point & 63)) - 1;
+            child[word] = (wb[word] & low) | (wa[word] & ~low);
+        }
+        return new Instance(new BitVector(child, a.size()));
+    }
+
+    /**
+     * Mate two int vectors
+     * @param a the first parent
+     * @param b the second parent
+     * @return the child
+     */
+    private Instance mate(IntVector a, IntVector b) {
+        int[] child = new int[a.size()];
+        int point = Distribution.random.nextInt(child.length + 1);
+        System.arraycopy(b.getData(), 0, child, 0, point);
+        System.arraycopy(a.getData(), point, child, point, child.length - point);
+        return new Instance(new IntVector(child));
+    }
+
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.Random;
 import dist.DiscreteDistribution;
 
 import opt.OptimizationAlgorithm;
+import opt.ParallelEvaluator;
 import shared.Instance;
 
 
@@ -17,9 +18,16 @@ import shared.Instance;
 public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
     
     /**
-     * The random number generator
+     * The random number generator used to select
+     * parents and pick which children get mutated
      */
-    private static final Random random = new Random();
+    private Random random = new Random();
+    
+    /**
+     * The evaluator used to score new children in parallel,
+     * or null to score them on the calling thread
+     */
+    private transient ParallelEvaluator evaluator;
     
     /**
      * The population size
@@ -56,19 +64,61 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
      * @param gap the problem to solve
      */
     public StandardGeneticAlgorithm(int populationSize, int toMate, int toMutate, GeneticAlgorithmProblem gap) {
+        this(populationSize, toMate, toMutate, gap, null);
+    }
+    
+    /**
+     * Make a new genetic algorithm that scores its population
+     * in parallel.  Mating, mutation and selection still happen
+     * on the calling thread, so a run is reproducible from its
+     * seeds no matter how many threads do the scoring; the
+     * problem's value function must be thread safe.
+     * @param populationSize the size
+     * @param toMate the number to mate each iteration
+     * @param toMutate the number to mutate each iteration
+     * @param gap the problem to solve
+     * @param evaluator the evaluator to score with, or null for serial scoring
+     */
+    public StandardGeneticAlgorithm(int populationSize, int toMate, int toMutate, GeneticAlgorithmProblem gap,
+            ParallelEvaluator evaluator) {
         super(gap);
         this.toMate = toMate;
         this.toMutate = toMutate;
         this.populationSize = populationSize;
+        this.evaluator = evaluator;
         population = new Instance[populationSize];
         for (int i = 0; i < population.length; i++) {
             population[i] = gap.random();
         }
         values = new double[populationSize];
-        for (int i = 0; i < values.length; i++) {
-            values[i] = gap.value(population[i]);
+        if (evaluator != null) {
+            evaluator.value(gap, population, values);
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = gap.value(population[i]);
+            }
         }
     }
+    
+    /**
+     * Seed the random number generator used by the algorithm itself
+     * for selection and for picking children to mutate.
+     * The crossover and mutation operators draw from
+     * dist.Distribution.random, which must be seeded separately
+     * for a fully reproducible run.
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        random = new Random(seed);
+    }
+    
+    /**
+     * Set the evaluator used to score new children
+     * @param evaluator the evaluator, or null for serial scoring
+     */
+    public void setEvaluator(ParallelEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
 
     /**
      * @see shared.Trainer#train()
@@ -95,15 +145,15 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
         Instance[] newPopulation = new Instance[populationSize];
         for (int i = 0; i < toMate; i++) {
             // pick the mates
-            Instance a = population[dd.sample(null).getDiscrete()];
-            Instance b = population[dd.sample(null).getDiscrete()];
+            Instance a = population[dd.sample(null, random).getDiscrete()];
+            Instance b = population[dd.sample(null, random).getDiscrete()];
             // make the kid
             newPopulation[i] = ga.mate(a, b);
             newValues[i] = -1;
         }
         // elite for the rest
         for (int i = toMate; i < newPopulation.length; i++) {
-            int j = dd.sample(null).getDiscrete();
+            int j = dd.sample(null, random).getDiscrete();
             newPopulation[i] = population[j];
             newValues[i] = values[j];
         }
@@ -113,9 +163,20 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
             newValues[i] = -1;
         }
         // calculate the new values
-        for (int i = 0; i < newValues.length; i++) {
-            if (newValues[i] == -1) {
-                newValues[i] = ga.value(newPopulation[i]);
+        if (evaluator != null) {
+            int[] toScore = new int[newValues.length];
+            int count = 0;
+            for (int i = 0; i < newValues.length; i++) {
+                if (newValues[i] == -1) {
+                    toScore[count++] = i;
+                }
+            }
+            evaluator.value(ga, newPopulation, newValues, toScore, count);
+        } else {
+            for (int i = 0; i < newValues.length; i++) {
+                if (newValues[i] == -1) {
+                    newValues[i] = ga.value(newPopulation[i]);
+                }
             }
         }
         // the new generation
@@ -124,6 +185,23 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
         return sum / populationSize;
     }
 
+    /**
+     * Get the current population, which is replaced
+     * by a new array every generation
+     * @return the population
+     */
+    Instance[] getPopulation() {
+        return population;
+    }
+    
+    /**
+     * Get the values of the current population
+     * @return the values
+     */
+    double[] getValues() {
+        return values;
+    }
+
     /**
      * @see opt.OptimizationAlgorithm#getOptimalData()
      */
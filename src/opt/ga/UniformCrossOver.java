@@ -1,6 +1,8 @@
 package opt.ga;
 
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.IntVector;
 
 import dist.Distribution;
 
@@ -15,6 +17,11 @@ public class UniformCrossOver implements CrossoverFunction {
      * @see opt.CrossOverFunction#mate(opt.OptimizationData, opt.OptimizationData)
      */
     public Instance mate(Instance a, Instance b) {
+        if (a.getData() instanceof BitVector && b.getData() instanceof BitVector) {
+            return mate((BitVector) a.getData(), (BitVector) b.getData());
+        } else if (a.getData() instanceof IntVector && b.getData() instanceof IntVector) {
+            return mate((IntVector) a.getData(), (IntVector) b.getData());
+        }
         double[] newData = new double[a.size()];
         for (int i = 0; i < newData.length; i++) {
             if (Distribution.random.nextBoolean()) {
@@ -26,4 +33,38 @@ public class UniformCrossOver implements CrossoverFunction {
         return new Instance(newData);
     }
 
+    /**
+     * Mate two bit strings a word at a time, taking
+     * each bit from a where a random mask is set
+     * @param a the first parent
+     * @param b the second parent
+     * @return the child
+     */
+    private Instance mate(BitVector a, BitVector b) {
+        long[] wa = a.getWords();
+        long[] wb = b.getWords();
+        long[] child = new long[wa.length];
+        for (int i = 0; i < child.length; i++) {
+            long mask = Distribution.random.nextLong();
+            child[i] = (wa[i] & mask) | (wb[i] & ~mask);
+        }
+        return new Instance(new BitVector(child, a.size()));
+    }
+
+    /**
+     * Mate two int vectors
+     * @param a the first parent
+     * @param b the second parent
+     * @return the child
+     */
+    private Instance mate(IntVector a, IntVector b) {
+        int[] da = a.getData();
+        int[] db = b.getData();
+        int[] child = new int[da.length];
+        for (int i = 0; i < child.length; i++) {
+            child[i] = Distribution.random.nextBoolean() ? da[i] : db[i];
+        }
+        return new Instance(new IntVector(child));
+    }
+
 }
\ No newline at end of file
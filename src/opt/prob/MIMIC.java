@@ -1,9 +1,15 @@
 package opt.prob;
 
 
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+
+import dist.DiscreteDependencyTree;
 import dist.Distribution;
+import dist.RandomSampler;
 import opt.OptimizationAlgorithm;
 import opt.OptimizationProblem;
+import opt.ParallelEvaluator;
 import shared.DataSet;
 import shared.Instance;
 import util.ABAGAILArrays;
@@ -31,6 +37,24 @@ public class MIMIC extends OptimizationAlgorithm {
      * The number of samples to keep
      */
     private int tokeep;
+    
+    /**
+     * The number of samples drawn from one random stream
+     * when sampling in parallel
+     */
+    private static final int SAMPLE_BLOCK_SIZE = 64;
+    
+    /**
+     * The random number generator that seeds the
+     * per block random streams
+     */
+    private Random random = new Random();
+    
+    /**
+     * The evaluator used to sample and score in parallel,
+     * or null to do everything on the calling thread
+     */
+    private transient ParallelEvaluator evaluator;
 
     /**
      * Make a new mimic
@@ -42,14 +66,37 @@ public class MIMIC extends OptimizationAlgorithm {
      * @param op the problem
      */
     public MIMIC(int samples, int tokeep, ProbabilisticOptimizationProblem op) {
+        this(samples, tokeep, op, null);
+    }
+    
+    /**
+     * Make a new mimic that samples and scores in parallel.
+     * If the problem's distribution is a RandomSampler each block of
+     * samples is drawn from its own random stream, seeded from this
+     * algorithm's generator, so a seeded run does not depend on the
+     * number of threads.  Otherwise samples are drawn serially and only
+     * scored in parallel.  A DiscreteDependencyTree distribution also
+     * estimates its mutual information on the evaluator's pool.
+     * The problem's value function must be thread safe.
+     * @param samples the number of samples to take each iteration
+     * @param tokeep the number of samples to keep
+     * @param op the problem
+     * @param evaluator the evaluator to use, or null for serial operation
+     */
+    public MIMIC(int samples, int tokeep, ProbabilisticOptimizationProblem op,
+            ParallelEvaluator evaluator) {
         super(op);
         this.tokeep = tokeep;
         this.samples = samples;
+        this.evaluator = evaluator;
         Instance[] data = new Instance[samples];
         for (int i = 0; i < data.length; i++) {
             data[i] = op.random();
         }
         distribution = op.getDistribution();
+        if (evaluator != null && distribution instanceof DiscreteDependencyTree) {
+            ((DiscreteDependencyTree) distribution).setPool(evaluator.getPool());
+        }
         distribution.estimate(new DataSet(data));
     }
 
@@ -59,6 +106,17 @@ public class MIMIC extends OptimizationAlgorithm {
     public Instance getOptimal() {
         OptimizationProblem op = getOptimizationProblem();
         Instance[] data = new Instance[samples];
+        if (evaluator != null) {
+            double[] values = new double[data.length];
+            sampleAndScore(op, data, values);
+            int best = 0;
+            for (int i = 1; i < data.length; i++) {
+                if (values[i] > values[best]) {
+                    best = i;
+                }
+            }
+            return data[best];
+        }
         for (int i = 0; i < data.length; i++) {
             data[i] = distribution.sample(null);
         } 
@@ -73,6 +131,51 @@ public class MIMIC extends OptimizationAlgorithm {
         }
         return best;
     }
+    
+    /**
+     * Seed the random number generator that seeds the
+     * per block random streams used when sampling in parallel
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        random = new Random(seed);
+    }
+    
+    /**
+     * Set the evaluator used to sample and score in parallel
+     * @param evaluator the evaluator, or null for serial operation
+     */
+    public void setEvaluator(ParallelEvaluator evaluator) {
+        this.evaluator = evaluator;
+        if (distribution instanceof DiscreteDependencyTree) {
+            ((DiscreteDependencyTree) distribution).setPool(
+                evaluator == null ? null : evaluator.getPool());
+        }
+    }
+    
+    /**
+     * Fill the data array with samples from the current distribution
+     * and the values array with their scores using the evaluator
+     * @param op the problem to score with
+     * @param data the array to fill with samples
+     * @param values the array to fill with values
+     */
+    private void sampleAndScore(OptimizationProblem op, Instance[] data, double[] values) {
+        if (!(distribution instanceof RandomSampler)) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = distribution.sample(null);
+            }
+            evaluator.value(op, data, values);
+            return;
+        }
+        int blocks = (data.length + SAMPLE_BLOCK_SIZE - 1) / SAMPLE_BLOCK_SIZE;
+        long[] seeds = new long[blocks];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+        evaluator.getPool().invoke(new SampleTask((RandomSampler) distribution,
+            op, data, values, seeds, 0, blocks));
+    }
 
     /**
      * @see shared.Trainer#train()
@@ -80,12 +183,16 @@ public class MIMIC extends OptimizationAlgorithm {
     public double train() {
         ProbabilisticOptimizationProblem op = (ProbabilisticOptimizationProblem) getOptimizationProblem();
         Instance[] data = new Instance[samples];
-        for (int i = 0; i < data.length; i++) {
-            data[i] = distribution.sample(null);
-        } 
         double[] values = new double[data.length];
-        for (int i = 0; i < data.length; i++) {
-            values[i] = op.value(data[i]);
+        if (evaluator != null) {
+            sampleAndScore(op, data, values);
+        } else {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = distribution.sample(null);
+            } 
+            for (int i = 0; i < data.length; i++) {
+                values[i] = op.value(data[i]);
+            }
         }
         double[] temp = new double[values.length];
         System.arraycopy(values, 0, temp, 0, temp.length);
@@ -101,5 +208,65 @@ public class MIMIC extends OptimizationAlgorithm {
         distribution.estimate(new DataSet(kept));
         return cutoff;
     }
+    
+    /**
+     * A task that samples and scores a range of blocks,
+     * splitting the range in half until it is a single block
+     */
+    private static class SampleTask extends RecursiveAction {
+        /** The distribution to sample from */
+        private RandomSampler distribution;
+        /** The problem to score with */
+        private OptimizationProblem op;
+        /** The samples */
+        private Instance[] data;
+        /** The values */
+        private double[] values;
+        /** The seed for each block */
+        private long[] seeds;
+        /** The starting block inclusive */
+        private int start;
+        /** The ending block exclusive */
+        private int end;
+        
+        /**
+         * Make a new sample task
+         * @param distribution the distribution to sample from
+         * @param op the problem to score with
+         * @param data the samples
+         * @param values the values
+         * @param seeds the seed for each block
+         * @param start the starting block inclusive
+         * @param end the ending block exclusive
+         */
+        public SampleTask(RandomSampler distribution, OptimizationProblem op,
+                Instance[] data, double[] values, long[] seeds, int start, int end) {
+            this.distribution = distribution;
+            this.op = op;
+            this.data = data;
+            this.values = values;
+            this.seeds = seeds;
+            this.start = start;
+            this.end = end;
+        }
+        
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start > 1) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new SampleTask(distribution, op, data, values, seeds, start, mid),
+                    new SampleTask(distribution, op, data, values, seeds, mid, end));
+                return;
+            }
+            Random random = new Random(seeds[start]);
+            int last = Math.min(data.length, (start + 1) * SAMPLE_BLOCK_SIZE);
+            for (int i = start * SAMPLE_BLOCK_SIZE; i < last; i++) {
+                data[i] = distribution.sample(null, random);
+                values[i] = op.value(data[i]);
+            }
+        }
+    }
 
 }
@@ -0,0 +1,168 @@
+package opt.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import dist.DiscretePermutationDistribution;
+import dist.DiscreteUniformDistribution;
+import dist.Distribution;
+
+import opt.CachingEvaluationFunction;
+import opt.DeltaEvaluationFunction;
+import opt.DiscreteChangeOneNeighbor;
+import opt.EvaluationFunction;
+import opt.GenericMoveHillClimbingProblem;
+import opt.HillClimbingProblem;
+import opt.Move;
+import opt.MoveNeighborFunction;
+import opt.OptimizationAlgorithm;
+import opt.RandomizedHillClimbing;
+import opt.SimulatedAnnealing;
+import opt.SwapNeighbor;
+import opt.example.*;
+import shared.Instance;
+
+/**
+ * Checks the move scoring of the example evaluation functions.
+ * Random moves are scored with the running totals and compared
+ * against scoring the moved data from scratch, and half of them
+ * are made, after which the updated totals are compared against
+ * fresh ones.  The totals are never made again along the way, so
+ * the differences printed for them include any drift in the sums.
+ * Last it checks that the optimum hill climbers hand out on move
+ * problems doesn't change as they go on making moves in place.
+ * @version 1.0
+ */
+public class DeltaEvaluationTest {
+    /** The n value */
+    private static final int N = 60;
+    /** The number of moves to try */
+    private static final int MOVES = 200000;
+
+    /**
+     * The test main
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        Random random = new Random();
+        int[] ranges = new int[N];
+        Arrays.fill(ranges, 2);
+        Distribution odd = new DiscreteUniformDistribution(ranges);
+        check("count ones change one", new CountOnesEvaluationFunction(), odd,
+            new DiscreteChangeOneNeighbor(ranges));
+        check("count ones swap", new CountOnesEvaluationFunction(), odd, new SwapNeighbor());
+        check("four peaks change one", new FourPeaksEvaluationFunction(N / 10), odd,
+            new DiscreteChangeOneNeighbor(ranges));
+
+        // a knapsack of up to 3 copies of each item
+        int[] copies = new int[N];
+        Arrays.fill(copies, 3);
+        int[] knapsackRanges = new int[N];
+        Arrays.fill(knapsackRanges, 4);
+        double[] weights = new double[N];
+        double[] volumes = new double[N];
+        for (int i = 0; i < N; i++) {
+            weights[i] = random.nextDouble() * 50;
+            volumes[i] = random.nextDouble() * 50;
+        }
+        KnapsackEvaluationFunction kef =
+            new KnapsackEvaluationFunction(weights, volumes, 3200, copies);
+        Distribution kodd = new DiscreteUniformDistribution(knapsackRanges);
+        check("knapsack change one", kef, kodd, new DiscreteChangeOneNeighbor(knapsackRanges));
+        check("knapsack swap", kef, kodd, new SwapNeighbor());
+
+        double[][] points = new double[N][2];
+        for (int i = 0; i < points.length; i++) {
+            points[i][0] = random.nextDouble();
+            points[i][1] = random.nextDouble();
+        }
+        TravelingSalesmanRouteEvaluationFunction tef =
+            new TravelingSalesmanRouteEvaluationFunction(points);
+        tef.buildNeighborLists(10);
+        Distribution todd = new DiscretePermutationDistribution(N);
+        check("route swap", tef, todd, new SwapNeighbor());
+        check("route 2-opt", tef, todd, new TwoOptNeighbor(tef));
+        check("route or-opt", tef, todd, new OrOptNeighbor(tef));
+
+        // with and without move scoring, the cache hides it
+        EvaluationFunction[] efs = { new FourPeaksEvaluationFunction(N / 10),
+            new CachingEvaluationFunction(new FourPeaksEvaluationFunction(N / 10)) };
+        for (int i = 0; i < efs.length; i++) {
+            HillClimbingProblem hcp = new GenericMoveHillClimbingProblem(efs[i], odd,
+                new DiscreteChangeOneNeighbor(ranges));
+            checkOptimum("rhc " + efs[i].getClass().getName(), efs[i],
+                new RandomizedHillClimbing(hcp));
+            checkOptimum("sa " + efs[i].getClass().getName(), efs[i],
+                new SimulatedAnnealing(100, .95, hcp));
+        }
+    }
+
+    /**
+     * Check that an optimum handed out by an algorithm
+     * keeps its value as the algorithm goes on training
+     * @param name the name of the check
+     * @param ef the evaluation function
+     * @param oa the algorithm
+     */
+    private static void checkOptimum(String name, EvaluationFunction ef,
+            OptimizationAlgorithm oa) {
+        Instance optimum = oa.getOptimal();
+        String before = optimum.toString();
+        for (int i = 0; i < MOVES / 40; i++) {
+            oa.train();
+        }
+        System.out.println(name + ": optimum "
+            + (before.equals(optimum.toString()) ? "unchanged" : "CHANGED")
+            + " after " + MOVES / 40 + " steps, now " + ef.value(oa.getOptimal()));
+    }
+
+    /**
+     * Try random moves from random data and print the largest
+     * relative differences between the move scores and the full
+     * scores, and between the updated totals and fresh ones
+     * @param name the name of the check
+     * @param ef the evaluation function
+     * @param dist the distribution of starting data
+     * @param nf the neighbor function making the moves
+     */
+    private static void check(String name, DeltaEvaluationFunction ef,
+            Distribution dist, MoveNeighborFunction nf) {
+        Instance d = dist.sample(null);
+        double[] totals = ef.totals(d);
+        double valueError = 0;
+        double totalsError = 0;
+        int made = 0;
+        for (int i = 0; i < MOVES; i++) {
+            Move move = nf.move(d);
+            Instance moved = (Instance) d.copy();
+            move.apply(moved);
+            valueError = Math.max(valueError,
+                difference(ef.value(d, totals, move), ef.value(moved)));
+            if (Distribution.random.nextBoolean()) {
+                if (!ef.update(d, totals, move)) {
+                    System.out.println(name + ": update refused " + move);
+                    return;
+                }
+                move.apply(d);
+                made++;
+            }
+        }
+        double[] fresh = ef.totals(d);
+        for (int i = 0; i < fresh.length; i++) {
+            totalsError = Math.max(totalsError, difference(totals[i], fresh[i]));
+        }
+        System.out.println(name + ": " + MOVES + " moves scored, " + made
+            + " made, largest value error " + valueError
+            + ", totals error " + totalsError);
+    }
+
+    /**
+     * Find the difference between two values relative to their size
+     * @param a the first value
+     * @param b the second value
+     * @return the difference
+     */
+    private static double difference(double a, double b) {
+        return Math.abs(a - b) / Math.max(1, Math.max(Math.abs(a), Math.abs(b)));
+    }
+}
@@ -10,6 +10,7 @@ import dist.Distribution;
 
 import opt.SwapNeighbor;
 import opt.GenericHillClimbingProblem;
+import opt.GenericMoveHillClimbingProblem;
 import opt.HillClimbingProblem;
 import opt.NeighborFunction;
 import opt.RandomizedHillClimbing;
@@ -65,6 +66,16 @@ public class TravelingSalesmanTest {
         fit.train();
         System.out.println(ef.value(sa.getOptimal()));
         
+        // 2-opt moves toward each city's nearest neighbors, with its own
+        // function so the neighbor lists don't change the crossover below
+        TravelingSalesmanEvaluationFunction tef = new TravelingSalesmanRouteEvaluationFunction(points);
+        tef.buildNeighborLists(10);
+        HillClimbingProblem mhcp = new GenericMoveHillClimbingProblem(tef, odd, new TwoOptNeighbor(tef));
+        rhc = new RandomizedHillClimbing(mhcp);
+        fit = new FixedIterationTrainer(rhc, 200000);
+        fit.train();
+        System.out.println(tef.value(rhc.getOptimal()));
+        
         StandardGeneticAlgorithm ga = new StandardGeneticAlgorithm(200, 150, 20, gap);
         fit = new FixedIterationTrainer(ga, 1000);
         fit.train();
@@ -0,0 +1,393 @@
+package shared.reader;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import shared.DataSet;
+import shared.DataSetDescription;
+import shared.DistanceMeasure;
+import shared.Instance;
+import shared.writer.BinaryModelWriter;
+import func.DecisionTreeClassifier;
+import func.KNNClassifier;
+import func.dtree.BinaryDecisionTreeSplit;
+import func.dtree.DecisionTreeNode;
+import func.dtree.DecisionTreeSplit;
+import func.dtree.DecisionTreeSplitStatistics;
+import func.dtree.StandardDecisionTreeSplit;
+import func.nn.activation.DifferentiableActivationFunction;
+import func.nn.backprop.BackPropagationNetwork;
+import func.nn.backprop.BackPropagationNetworkFactory;
+import func.nn.dense.DenseNetwork;
+import func.svm.Kernel;
+import func.svm.LinearKernel;
+import func.svm.PolynomialKernel;
+import func.svm.RBFKernel;
+import func.svm.SigmoidKernel;
+import func.svm.SupportVectorMachine;
+
+/**
+ * Reads models written by BinaryModelWriter.  The file is mapped
+ * into memory and the arrays in it are copied out in bulk, so
+ * loading a model costs little more than reading its bytes.
+ * @version 1.0
+ */
+public class BinaryModelReader {
+    /**
+     * The file to read from
+     */
+    private String file;
+
+    /**
+     * The mapped file
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Make a new model reader
+     * @param file the file to read from
+     */
+    public BinaryModelReader(String file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the model in the file
+     * @return the model
+     * @throws IOException if the file can't be read or isn't a model
+     */
+    public Object read() throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != BinaryModelWriter.MAGIC) {
+                throw new IOException(file + " is not a model file");
+            }
+            int version = buffer.getInt();
+            if (version != BinaryModelWriter.VERSION) {
+                throw new IOException("Unsupported model file version " + version);
+            }
+            int type = buffer.getInt();
+            switch (type) {
+                case BinaryModelWriter.DENSE_NETWORK:
+                    return readDenseNetwork();
+                case BinaryModelWriter.BACK_PROPAGATION_NETWORK:
+                    return readBackPropagationNetwork();
+                case BinaryModelWriter.SUPPORT_VECTOR_MACHINE:
+                    return readSupportVectorMachine();
+                case BinaryModelWriter.DECISION_TREE:
+                    return readDecisionTree();
+                case BinaryModelWriter.KNN:
+                    return readKNN();
+                default:
+                    throw new IOException("Unknown model type " + type);
+            }
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException(file + " is truncated");
+        } finally {
+            buffer = null;
+            in.close();
+        }
+    }
+
+    /**
+     * Read a dense network
+     * @return the network
+     * @throws IOException if the file is bad
+     */
+    private DenseNetwork readDenseNetwork() throws IOException {
+        int[] nodeCounts = readInts();
+        DifferentiableActivationFunction transfer =
+            (DifferentiableActivationFunction) newInstance(readString(),
+                DifferentiableActivationFunction.class);
+        DifferentiableActivationFunction outputFunction =
+            (DifferentiableActivationFunction) newInstance(readString(),
+                DifferentiableActivationFunction.class);
+        boolean softMax = buffer.getInt() == 1;
+        double[] weights = readDoubles();
+        try {
+            return new DenseNetwork(nodeCounts, transfer, outputFunction, softMax, weights);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad network layers or weights: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read a back propagation network, building it
+     * with BackPropagationNetworkFactory
+     * @return the network
+     * @throws IOException if the file is bad
+     */
+    private BackPropagationNetwork readBackPropagationNetwork() throws IOException {
+        int[] nodeCounts = readInts();
+        DifferentiableActivationFunction transfer =
+            (DifferentiableActivationFunction) newInstance(readString(),
+                DifferentiableActivationFunction.class);
+        boolean classification = buffer.getInt() == 1;
+        double[] weights = readDoubles();
+        // check the layers against the weights before building anything
+        try {
+            if (DenseNetwork.getWeightCount(nodeCounts) != weights.length) {
+                throw new IOException("Wrong number of network weights");
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad network layers: " + e.getMessage());
+        }
+        BackPropagationNetworkFactory factory = new BackPropagationNetworkFactory();
+        BackPropagationNetwork network = classification
+            ? factory.createClassificationNetwork(nodeCounts, transfer)
+            : factory.createRegressionNetwork(nodeCounts, transfer);
+        if (network.getLinks().size() != weights.length) {
+            throw new IOException("Wrong number of network weights");
+        }
+        network.setWeights(weights);
+        return network;
+    }
+
+    /**
+     * Read a support vector machine
+     * @return the support vector machine
+     * @throws IOException if the file is bad
+     */
+    private SupportVectorMachine readSupportVectorMachine() throws IOException {
+        Kernel kernel;
+        int kernelType = buffer.getInt();
+        switch (kernelType) {
+            case BinaryModelWriter.LINEAR_KERNEL:
+                kernel = new LinearKernel();
+                break;
+            case BinaryModelWriter.RBF_KERNEL:
+                kernel = new RBFKernel(buffer.getDouble());
+                break;
+            case BinaryModelWriter.POLYNOMIAL_KERNEL:
+                double weight = buffer.getDouble();
+                double constant = buffer.getDouble();
+                kernel = new PolynomialKernel(weight, constant, buffer.getInt());
+                break;
+            case BinaryModelWriter.SIGMOID_KERNEL:
+                double sigmoidWeight = buffer.getDouble();
+                kernel = new SigmoidKernel(sigmoidWeight, buffer.getDouble());
+                break;
+            default:
+                throw new IOException("Unknown kernel type " + kernelType);
+        }
+        double b = buffer.getDouble();
+        double[] a = readDoubles();
+        Instance[] instances = readExamples();
+        for (int i = 0; i < instances.length; i++) {
+            instances[i].setLabel(new Instance(instances[i].getLabel().getDiscrete() == 1));
+        }
+        if (instances.length != a.length) {
+            throw new IOException("Wrong number of support vector weights");
+        }
+        return new SupportVectorMachine(new DataSet(instances), a, kernel, b);
+    }
+
+    /**
+     * Read a decision tree, whose nodes are in preorder
+     * @return the decision tree
+     * @throws IOException if the file is bad
+     */
+    private DecisionTreeClassifier readDecisionTree() throws IOException {
+        int classes = buffer.getInt();
+        int[] splitTypes = readInts();
+        int[] attributes = readInts();
+        int[] splitValues = readInts();
+        int[] branches = readInts();
+        int[] children = readInts();
+        int[] instanceCounts = readInts();
+        double[] branchProbabilities = readDoubles();
+        double[] classProbabilities = readDoubles();
+        double[] conditionalProbabilities = readDoubles();
+        int count = splitTypes.length;
+        if (count == 0) {
+            throw new IOException("Empty decision tree");
+        }
+        if (classes < 0 || attributes.length != count || splitValues.length != count
+                || branches.length != count) {
+            throw new IOException("Bad decision tree node arrays");
+        }
+        // the offset of each node's first branch
+        int[] offsets = new int[count + 1];
+        long branchTotal = 0;
+        for (int i = 0; i < count; i++) {
+            if (branches[i] < 0) {
+                throw new IOException("Bad decision tree branch count " + branches[i]);
+            }
+            branchTotal += branches[i];
+            if (branchTotal > children.length) {
+                throw new IOException("Bad decision tree branch arrays");
+            }
+            offsets[i + 1] = (int) branchTotal;
+        }
+        if (branchTotal != children.length || branchTotal != instanceCounts.length
+                || branchTotal != branchProbabilities.length
+                || (long) count * classes != classProbabilities.length
+                || branchTotal * classes != conditionalProbabilities.length) {
+            throw new IOException("Bad decision tree branch arrays");
+        }
+        // children come after their parents, so build from the end
+        DecisionTreeNode[] nodes = new DecisionTreeNode[count];
+        for (int i = count - 1; i >= 0; i--) {
+            DecisionTreeSplit split;
+            if (splitTypes[i] == BinaryModelWriter.STANDARD_SPLIT) {
+                split = new StandardDecisionTreeSplit(attributes[i], splitValues[i]);
+            } else if (splitTypes[i] == BinaryModelWriter.BINARY_SPLIT) {
+                split = new BinaryDecisionTreeSplit(attributes[i], splitValues[i]);
+            } else {
+                throw new IOException("Unknown split type " + splitTypes[i]);
+            }
+            int start = offsets[i];
+            int[] nodeCounts = new int[branches[i]];
+            double[] nodeBranchProbabilities = new double[branches[i]];
+            double[][] conditional = new double[branches[i]][classes];
+            DecisionTreeNode[] nodeChildren = new DecisionTreeNode[branches[i]];
+            for (int j = 0; j < branches[i]; j++) {
+                nodeCounts[j] = instanceCounts[start + j];
+                nodeBranchProbabilities[j] = branchProbabilities[start + j];
+                System.arraycopy(conditionalProbabilities, (start + j) * classes,
+                    conditional[j], 0, classes);
+                int child = children[start + j];
+                if (child != -1) {
+                    if (child <= i || child >= count) {
+                        throw new IOException("Bad decision tree child " + child);
+                    }
+                    nodeChildren[j] = nodes[child];
+                }
+            }
+            double[] nodeClassProbabilities = new double[classes];
+            System.arraycopy(classProbabilities, i * classes,
+                nodeClassProbabilities, 0, classes);
+            DecisionTreeSplitStatistics stats = new DecisionTreeSplitStatistics(
+                nodeCounts, nodeClassProbabilities, conditional, nodeBranchProbabilities);
+            nodes[i] = new DecisionTreeNode(split, stats, nodeChildren);
+        }
+        DecisionTreeClassifier classifier = new DecisionTreeClassifier();
+        classifier.setRoot(nodes[0]);
+        return classifier;
+    }
+
+    /**
+     * Read a k nearest neighbor classifier, rebuilding its tree
+     * @return the classifier
+     * @throws IOException if the file is bad
+     */
+    private KNNClassifier readKNN() throws IOException {
+        int k = buffer.getInt();
+        boolean weightByDistance = buffer.getInt() == 1;
+        double range = buffer.getDouble();
+        DistanceMeasure measure =
+            (DistanceMeasure) newInstance(readString(), DistanceMeasure.class);
+        DataSet examples = new DataSet(readExamples());
+        examples.setDescription(new DataSetDescription(examples));
+        KNNClassifier classifier = new KNNClassifier(k, weightByDistance, measure, range);
+        classifier.estimate(examples);
+        return classifier;
+    }
+
+    /**
+     * Read a set of examples with discrete labels
+     * @return the examples
+     * @throws IOException if the file is bad
+     */
+    private Instance[] readExamples() throws IOException {
+        int d = buffer.getInt();
+        double[] data = readDoubles();
+        int[] labels = readInts();
+        double[] weights = readDoubles();
+        if (d < 0 || weights.length != labels.length
+                || (long) labels.length * d != data.length) {
+            throw new IOException("Wrong number of example values");
+        }
+        Instance[] instances = new Instance[labels.length];
+        for (int i = 0; i < instances.length; i++) {
+            double[] values = new double[d];
+            System.arraycopy(data, i * d, values, 0, d);
+            instances[i] = new Instance(values, labels[i]);
+            instances[i].setWeight(weights[i]);
+        }
+        return instances;
+    }
+
+    /**
+     * Make an object from its class name with its no argument
+     * constructor.  The class is checked against the expected
+     * type before anything in it is run, so a bad file can't
+     * make arbitrary objects.
+     * @param name the name of the class
+     * @param expected the type the object must have
+     * @return the object
+     * @throws IOException if it can't be made
+     */
+    private Object newInstance(String name, Class expected) throws IOException {
+        Class cls;
+        try {
+            cls = Class.forName(name, false, expected.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class " + name);
+        }
+        if (!expected.isAssignableFrom(cls)) {
+            throw new IOException(name + " is not a " + expected.getName());
+        }
+        try {
+            return cls.getConstructor(new Class[0]).newInstance(new Object[0]);
+        } catch (Exception e) {
+            throw new IOException("Can't make a " + name + ": " + e);
+        }
+    }
+
+    /**
+     * Read the length of an array, checking that
+     * that many elements are left in the file
+     * @param elementSize the size of an element in bytes
+     * @return the length
+     * @throws IOException if the length is bad
+     */
+    private int readLength(int elementSize) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / elementSize) {
+            throw new IOException("Bad array length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Read a string as a length and utf-8 bytes
+     * @return the string
+     * @throws IOException if the length is bad
+     */
+    private String readString() throws IOException {
+        byte[] bytes = new byte[readLength(1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read an array of integers as a length and the values
+     * @return the values
+     * @throws IOException if the length is bad
+     */
+    private int[] readInts() throws IOException {
+        int[] values = new int[readLength(4)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    /**
+     * Read an array of doubles as a length and the values
+     * @return the values
+     * @throws IOException if the length is bad
+     */
+    private double[] readDoubles() throws IOException {
+        double[] values = new double[readLength(8)];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 8);
+        return values;
+    }
+
+}
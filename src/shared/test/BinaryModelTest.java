@@ -0,0 +1,219 @@
+package shared.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import shared.DataSet;
+import shared.EuclideanDistance;
+import shared.Instance;
+import shared.reader.BinaryModelReader;
+import shared.writer.BinaryModelWriter;
+import func.DecisionTreeClassifier;
+import func.KNNClassifier;
+import func.dtree.InformationGainSplitEvaluator;
+import func.nn.activation.HyperbolicTangentSigmoid;
+import func.nn.activation.LinearActivationFunction;
+import func.nn.activation.LogisticSigmoid;
+import func.nn.backprop.BackPropagationNetwork;
+import func.nn.backprop.BackPropagationNetworkFactory;
+import func.nn.dense.DenseNetwork;
+import func.svm.Kernel;
+import func.svm.LinearKernel;
+import func.svm.PolynomialKernel;
+import func.svm.RBFKernel;
+import func.svm.SequentialMinimalOptimization;
+import func.svm.SigmoidKernel;
+import func.svm.SupportVectorMachine;
+
+/**
+ * Writes every kind of model the binary model format supports, reads
+ * it back and checks that the copy gives the same outputs as the
+ * original.  Then damages the files at random and checks that reading
+ * them either works or fails with an IOException.
+ * @version 1.0
+ */
+public class BinaryModelTest {
+    /**
+     * The number of examples
+     */
+    private static final int N = 200;
+
+    /**
+     * The number of damaged copies of each file to read
+     */
+    private static final int DAMAGED = 100;
+
+    /**
+     * The file to write models to
+     */
+    private static File file;
+
+    /**
+     * The contents of every model file written
+     */
+    private static List files = new ArrayList();
+
+    /**
+     * The test main
+     * @param args ignored
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+        file = File.createTempFile("model", ".bin");
+        file.deleteOnExit();
+        Random random = new Random(1);
+        Instance[] continuous = new Instance[N];
+        Instance[] discrete = new Instance[N];
+        for (int i = 0; i < N; i++) {
+            boolean label = i % 2 == 0;
+            double[] x = new double[5];
+            for (int j = 0; j < x.length; j++) {
+                x[j] = random.nextGaussian() + (label ? .5 : -.5);
+            }
+            continuous[i] = new Instance(x, label);
+            double[] d = new double[4];
+            for (int j = 0; j < d.length; j++) {
+                d[j] = random.nextInt(3);
+            }
+            discrete[i] = new Instance(d, ((int) d[0] + (int) d[1]) % 3);
+        }
+        DataSet continuousSet = new DataSet(continuous);
+        DataSet discreteSet = new DataSet(discrete);
+
+        Kernel[] kernels = { new LinearKernel(), new RBFKernel(2),
+            new PolynomialKernel(2), new SigmoidKernel() };
+        for (int k = 0; k < kernels.length; k++) {
+            SequentialMinimalOptimization smo =
+                new SequentialMinimalOptimization(continuousSet, kernels[k], 1);
+            smo.train();
+            SupportVectorMachine svm = smo.getSupportVectorMachine();
+            SupportVectorMachine copy = (SupportVectorMachine) roundTrip(svm);
+            boolean same = true;
+            for (int i = 0; i < N; i++) {
+                same &= svm.margin(continuous[i]) == copy.margin(continuous[i]);
+            }
+            System.out.println("svm " + kernels[k] + ": same " + same);
+        }
+
+        boolean[] binary = { false, true };
+        for (int b = 0; b < binary.length; b++) {
+            DecisionTreeClassifier tree = new DecisionTreeClassifier(
+                new InformationGainSplitEvaluator(), binary[b]);
+            tree.estimate(discreteSet);
+            DecisionTreeClassifier copy = (DecisionTreeClassifier) roundTrip(tree);
+            boolean same = tree.toString().equals(copy.toString());
+            for (int i = 0; i < N; i++) {
+                same &= tree.distributionFor(discrete[i]).toString()
+                    .equals(copy.distributionFor(discrete[i]).toString());
+            }
+            System.out.println("decision tree, binary splits " + binary[b] + ": same " + same);
+        }
+
+        KNNClassifier knn = new KNNClassifier(5, true, new EuclideanDistance(), -1);
+        knn.estimate(discreteSet);
+        KNNClassifier knnCopy = (KNNClassifier) roundTrip(knn);
+        boolean knnSame = true;
+        for (int i = 0; i < N; i++) {
+            knnSame &= knn.distributionFor(discrete[i]).toString()
+                .equals(knnCopy.distributionFor(discrete[i]).toString());
+        }
+        System.out.println("knn: same " + knnSame);
+
+        BackPropagationNetworkFactory factory = new BackPropagationNetworkFactory();
+        BackPropagationNetwork[] networks = {
+            factory.createClassificationNetwork(new int[] { 5, 4, 3 }),
+            factory.createRegressionNetwork(new int[] { 5, 6, 4, 2 }, new LogisticSigmoid()) };
+        for (int k = 0; k < networks.length; k++) {
+            BackPropagationNetwork copy = (BackPropagationNetwork) roundTrip(networks[k]);
+            boolean same = true;
+            for (int i = 0; i < N; i++) {
+                networks[k].setInputValues(continuous[i].getData());
+                networks[k].run();
+                copy.setInputValues(continuous[i].getData());
+                copy.run();
+                same &= networks[k].getOutputValues().equals(copy.getOutputValues());
+            }
+            System.out.println("back propagation network " + k + ": same " + same);
+        }
+
+        DenseNetwork dense = new DenseNetwork(new int[] { 5, 8, 3 },
+            new HyperbolicTangentSigmoid(), new LinearActivationFunction(), true);
+        DenseNetwork denseCopy = (DenseNetwork) roundTrip(dense);
+        boolean denseSame = true;
+        for (int i = 0; i < N; i++) {
+            dense.setInputValues(continuous[i].getData());
+            dense.run();
+            denseCopy.setInputValues(continuous[i].getData());
+            denseCopy.run();
+            denseSame &= Arrays.equals(dense.getOutputArray(), denseCopy.getOutputArray());
+        }
+        System.out.println("dense network: same " + denseSame);
+
+        // damage each file a few bytes at a time
+        int read = 0;
+        int rejected = 0;
+        int escaped = 0;
+        for (int f = 0; f < files.size(); f++) {
+            byte[] original = (byte[]) files.get(f);
+            for (int t = 0; t < DAMAGED; t++) {
+                byte[] damaged = (byte[]) original.clone();
+                int changes = 1 + random.nextInt(4);
+                for (int c = 0; c < changes; c++) {
+                    // mostly in the header and the small arrays near it
+                    int at = 12 + random.nextInt(Math.min(damaged.length - 12, 256));
+                    damaged[at] = (byte) random.nextInt(256);
+                }
+                if (random.nextInt(10) == 0) {
+                    damaged = Arrays.copyOf(damaged, random.nextInt(damaged.length));
+                }
+                write(damaged);
+                try {
+                    new BinaryModelReader(file.getPath()).read();
+                    read++;
+                } catch (IOException e) {
+                    rejected++;
+                } catch (Throwable e) {
+                    escaped++;
+                    if (escaped <= 5) {
+                        System.out.println("not an IOException: " + e);
+                    }
+                }
+            }
+        }
+        System.out.println("damaged files read " + read + ", rejected " + rejected
+            + ", other errors " + escaped);
+    }
+
+    /**
+     * Write a model, keep the file's contents and read it back
+     * @param model the model
+     * @return the model read back
+     * @throws IOException if it can't be written or read
+     */
+    private static Object roundTrip(Object model) throws IOException {
+        new BinaryModelWriter(file.getPath()).write(model);
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        byte[] contents = new byte[(int) in.length()];
+        in.readFully(contents);
+        in.close();
+        files.add(contents);
+        return new BinaryModelReader(file.getPath()).read();
+    }
+
+    /**
+     * Replace the model file's contents
+     * @param contents the new contents
+     * @throws IOException if it can't be written
+     */
+    private static void write(byte[] contents) throws IOException {
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        out.setLength(0);
+        out.write(contents);
+        out.close();
+    }
+}
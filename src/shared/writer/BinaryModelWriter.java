@@ -0,0 +1,462 @@
+package shared.writer;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import shared.DataSet;
+import shared.DistanceMeasure;
+import shared.Instance;
+import func.DecisionTreeClassifier;
+import func.KNNClassifier;
+import func.dtree.BinaryDecisionTreeSplit;
+import func.dtree.DecisionTreeNode;
+import func.dtree.DecisionTreeSplit;
+import func.dtree.DecisionTreeSplitStatistics;
+import func.dtree.StandardDecisionTreeSplit;
+import func.nn.Layer;
+import func.nn.activation.ActivationFunction;
+import func.nn.activation.HyperbolicTangentSigmoid;
+import func.nn.activation.LinearActivationFunction;
+import func.nn.activation.LogisticSigmoid;
+import func.nn.backprop.BackPropagationNetwork;
+import func.nn.backprop.BackPropagationSoftMaxOutputLayer;
+import func.nn.dense.DenseNetwork;
+import func.nn.feedfwd.FeedForwardNode;
+import func.svm.Kernel;
+import func.svm.LinearKernel;
+import func.svm.PolynomialKernel;
+import func.svm.RBFKernel;
+import func.svm.SigmoidKernel;
+import func.svm.SupportVectorMachine;
+
+/**
+ * Writes trained models in a compact binary format, which
+ * BinaryModelReader loads back by mapping the file into memory.
+ * Everything is stored as flat arrays of primitives: network weights,
+ * the nodes of a decision tree in preorder, support vectors and
+ * nearest neighbor examples one after another.  A file starts with
+ * a magic number, the format version and the type of model.
+ * Supported models are dense networks, back propagation networks
+ * made by BackPropagationNetworkFactory, support vector machines,
+ * decision trees and k nearest neighbor classifiers.
+ * @version 1.0
+ */
+public class BinaryModelWriter {
+    /**
+     * The number every model file starts with
+     */
+    public static final int MAGIC = 0x41424d4c;
+
+    /**
+     * The version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The type of a dense network
+     */
+    public static final int DENSE_NETWORK = 1;
+
+    /**
+     * The type of a back propagation network
+     */
+    public static final int BACK_PROPAGATION_NETWORK = 2;
+
+    /**
+     * The type of a support vector machine
+     */
+    public static final int SUPPORT_VECTOR_MACHINE = 3;
+
+    /**
+     * The type of a decision tree
+     */
+    public static final int DECISION_TREE = 4;
+
+    /**
+     * The type of a k nearest neighbor classifier
+     */
+    public static final int KNN = 5;
+
+    /**
+     * The kernel types
+     */
+    public static final int LINEAR_KERNEL = 1, RBF_KERNEL = 2,
+        POLYNOMIAL_KERNEL = 3, SIGMOID_KERNEL = 4;
+
+    /**
+     * The decision tree split types
+     */
+    public static final int STANDARD_SPLIT = 1, BINARY_SPLIT = 2;
+
+    /**
+     * The size of the buffer writes go through
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The file to write to
+     */
+    private String file;
+
+    /**
+     * The channel being written
+     */
+    private FileChannel channel;
+
+    /**
+     * The buffer of bytes not yet written
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Make a new model writer
+     * @param file the file to write to
+     */
+    public BinaryModelWriter(String file) {
+        this.file = file;
+    }
+
+    /**
+     * Write a model to the file
+     * @param model the model
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if the model isn't supported
+     */
+    public void write(Object model) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            channel = out.getChannel();
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            writeInt(MAGIC);
+            writeInt(VERSION);
+            if (model instanceof DenseNetwork) {
+                writeInt(DENSE_NETWORK);
+                write((DenseNetwork) model);
+            } else if (model instanceof BackPropagationNetwork) {
+                writeInt(BACK_PROPAGATION_NETWORK);
+                write((BackPropagationNetwork) model);
+            } else if (model instanceof SupportVectorMachine) {
+                writeInt(SUPPORT_VECTOR_MACHINE);
+                write((SupportVectorMachine) model);
+            } else if (model instanceof DecisionTreeClassifier) {
+                writeInt(DECISION_TREE);
+                write((DecisionTreeClassifier) model);
+            } else if (model instanceof KNNClassifier) {
+                writeInt(KNN);
+                write((KNNClassifier) model);
+            } else {
+                throw new IllegalArgumentException("Can't write " + model.getClass().getName());
+            }
+            flush();
+        } finally {
+            channel = null;
+            buffer = null;
+            out.close();
+        }
+    }
+
+    /**
+     * Write a dense network
+     * @param network the network
+     * @throws IOException if the file can't be written
+     */
+    private void write(DenseNetwork network) throws IOException {
+        writeInts(network.getNodeCounts());
+        writeString(network.getTransferFunction().getClass().getName());
+        writeString(network.getOutputFunction().getClass().getName());
+        writeInt(network.isSoftMax() ? 1 : 0);
+        writeDoubles(network.getWeightArray());
+    }
+
+    /**
+     * Write a back propagation network, which must be
+     * laid out the way BackPropagationNetworkFactory makes them
+     * @param network the network
+     * @throws IOException if the file can't be written
+     */
+    private void write(BackPropagationNetwork network) throws IOException {
+        int layers = network.getHiddenLayerCount() + 2;
+        int[] nodeCounts = new int[layers];
+        // the input and hidden layers end with a bias node
+        nodeCounts[0] = network.getInputLayer().getNodeCount() - 1;
+        for (int i = 0; i < network.getHiddenLayerCount(); i++) {
+            nodeCounts[i + 1] = network.getHiddenLayer(i).getNodeCount() - 1;
+        }
+        Layer output = network.getOutputLayer();
+        nodeCounts[layers - 1] = output.getNodeCount();
+        ActivationFunction transfer = network.getHiddenLayerCount() == 0
+            ? new HyperbolicTangentSigmoid()
+            : ((FeedForwardNode) network.getHiddenLayer(0).getNode(0)).getActivationFunction();
+        ActivationFunction outputFunction =
+            ((FeedForwardNode) output.getNode(0)).getActivationFunction();
+        boolean classification;
+        if (output instanceof BackPropagationSoftMaxOutputLayer) {
+            classification = true;
+        } else if (outputFunction instanceof LogisticSigmoid && output.getNodeCount() == 1) {
+            classification = true;
+        } else if (outputFunction instanceof LinearActivationFunction) {
+            classification = false;
+        } else {
+            throw new IllegalArgumentException("Can't write a network with a "
+                + outputFunction.getClass().getName() + " output layer");
+        }
+        writeInts(nodeCounts);
+        writeString(transfer.getClass().getName());
+        writeInt(classification ? 1 : 0);
+        writeDoubles(network.getWeights());
+    }
+
+    /**
+     * Write a support vector machine
+     * @param svm the support vector machine
+     * @throws IOException if the file can't be written
+     */
+    private void write(SupportVectorMachine svm) throws IOException {
+        Kernel kernel = svm.getKernel();
+        if (kernel instanceof LinearKernel) {
+            writeInt(LINEAR_KERNEL);
+        } else if (kernel instanceof RBFKernel) {
+            writeInt(RBF_KERNEL);
+            writeDouble(((RBFKernel) kernel).getSigma());
+        } else if (kernel instanceof PolynomialKernel) {
+            PolynomialKernel polynomial = (PolynomialKernel) kernel;
+            writeInt(POLYNOMIAL_KERNEL);
+            writeDouble(polynomial.getDotProductWeight());
+            writeDouble(polynomial.getAdditiveConstant());
+            writeInt(polynomial.getExponent());
+        } else if (kernel instanceof SigmoidKernel) {
+            SigmoidKernel sigmoid = (SigmoidKernel) kernel;
+            writeInt(SIGMOID_KERNEL);
+            writeDouble(sigmoid.getDotProductWeight());
+            writeDouble(sigmoid.getAdditiveConstant());
+        } else {
+            throw new IllegalArgumentException("Can't write " + kernel.getClass().getName());
+        }
+        writeDouble(svm.getThreshold());
+        writeDoubles(svm.getWeights());
+        writeExamples(svm.getSupportVectors());
+    }
+
+    /**
+     * Write a decision tree, with its nodes in preorder
+     * @param classifier the decision tree
+     * @throws IOException if the file can't be written
+     */
+    private void write(DecisionTreeClassifier classifier) throws IOException {
+        List nodes = new ArrayList();
+        preorder(classifier.getRoot(), nodes);
+        // the index of each node, so children are found in constant time
+        Map indices = new IdentityHashMap();
+        int branchTotal = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            indices.put(nodes.get(i), Integer.valueOf(i));
+            branchTotal += ((DecisionTreeNode) nodes.get(i)).getNodes().length;
+        }
+        int classes = classifier.getRoot().getSplitStatistics().getClassCount();
+        int[] splitTypes = new int[nodes.size()];
+        int[] attributes = new int[nodes.size()];
+        int[] splitValues = new int[nodes.size()];
+        int[] branches = new int[nodes.size()];
+        int[] children = new int[branchTotal];
+        int[] instanceCounts = new int[branchTotal];
+        double[] branchProbabilities = new double[branchTotal];
+        double[] classProbabilities = new double[nodes.size() * classes];
+        double[] conditionalProbabilities = new double[branchTotal * classes];
+        int branch = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            DecisionTreeNode node = (DecisionTreeNode) nodes.get(i);
+            DecisionTreeSplit split = node.getSplit();
+            if (split instanceof StandardDecisionTreeSplit) {
+                splitTypes[i] = STANDARD_SPLIT;
+                attributes[i] = ((StandardDecisionTreeSplit) split).getAttribute();
+                splitValues[i] = ((StandardDecisionTreeSplit) split).getAttributeRange();
+            } else if (split instanceof BinaryDecisionTreeSplit) {
+                splitTypes[i] = BINARY_SPLIT;
+                attributes[i] = ((BinaryDecisionTreeSplit) split).getAttribute();
+                splitValues[i] = ((BinaryDecisionTreeSplit) split).getValue();
+            } else {
+                throw new IllegalArgumentException("Can't write " + split.getClass().getName());
+            }
+            DecisionTreeSplitStatistics stats = node.getSplitStatistics();
+            branches[i] = node.getNodes().length;
+            System.arraycopy(stats.getClassProbabilities(), 0,
+                classProbabilities, i * classes, classes);
+            for (int j = 0; j < branches[i]; j++, branch++) {
+                DecisionTreeNode child = node.getNode(j);
+                children[branch] = child == null ? -1 : ((Integer) indices.get(child)).intValue();
+                instanceCounts[branch] = stats.getInstanceCount(j);
+                branchProbabilities[branch] = stats.getBranchProbability(j);
+                System.arraycopy(stats.getConditionalClassProbabilities(j), 0,
+                    conditionalProbabilities, branch * classes, classes);
+            }
+        }
+        writeInt(classes);
+        writeInts(splitTypes);
+        writeInts(attributes);
+        writeInts(splitValues);
+        writeInts(branches);
+        writeInts(children);
+        writeInts(instanceCounts);
+        writeDoubles(branchProbabilities);
+        writeDoubles(classProbabilities);
+        writeDoubles(conditionalProbabilities);
+    }
+
+    /**
+     * Add the nodes of a tree to a list in preorder
+     * @param node the root of the tree
+     * @param nodes the list
+     */
+    private void preorder(DecisionTreeNode node, List nodes) {
+        nodes.add(node);
+        for (int i = 0; i < node.getNodes().length; i++) {
+            if (node.getNode(i) != null) {
+                preorder(node.getNode(i), nodes);
+            }
+        }
+    }
+
+    /**
+     * Write a k nearest neighbor classifier, whose
+     * distance measure needs a public no argument constructor
+     * @param classifier the classifier
+     * @throws IOException if the file can't be written
+     */
+    private void write(KNNClassifier classifier) throws IOException {
+        DistanceMeasure measure = classifier.getDistanceMeasure();
+        try {
+            measure.getClass().getConstructor(new Class[0]);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Can't write " + measure.getClass().getName());
+        }
+        writeInt(classifier.getK());
+        writeInt(classifier.isWeightByDistance() ? 1 : 0);
+        writeDouble(classifier.getRange());
+        writeString(measure.getClass().getName());
+        writeExamples(classifier.getExamples());
+    }
+
+    /**
+     * Write a set of examples with discrete labels, all the same size,
+     * as the data in one array followed by the labels and weights
+     * @param examples the examples
+     * @throws IOException if the file can't be written
+     */
+    private void writeExamples(DataSet examples) throws IOException {
+        int n = examples.size();
+        int d = n == 0 ? 0 : examples.get(0).size();
+        double[] data = new double[n * d];
+        int[] labels = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            Instance instance = examples.get(i);
+            if (instance.size() != d) {
+                throw new IllegalArgumentException("Examples must all be the same size");
+            }
+            for (int j = 0; j < d; j++) {
+                data[i * d + j] = instance.getContinuous(j);
+            }
+            labels[i] = instance.getLabel().getDiscrete();
+            weights[i] = instance.getWeight();
+        }
+        writeInt(d);
+        writeDoubles(data);
+        writeInts(labels);
+        writeDoubles(weights);
+    }
+
+    /**
+     * Make room in the buffer, writing it out if needed
+     * @param bytes the number of bytes needed
+     * @throws IOException if the file can't be written
+     */
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Write out the buffer
+     * @throws IOException if the file can't be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write an integer
+     * @param value the value
+     * @throws IOException if the file can't be written
+     */
+    private void writeInt(int value) throws IOException {
+        reserve(4);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Write a double
+     * @param value the value
+     * @throws IOException if the file can't be written
+     */
+    private void writeDouble(double value) throws IOException {
+        reserve(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Write a string as a length and utf-8 bytes
+     * @param value the value
+     * @throws IOException if the file can't be written
+     */
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        reserve(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Write an array of integers as a length and the values
+     * @param values the values
+     * @throws IOException if the file can't be written
+     */
+    private void writeInts(int[] values) throws IOException {
+        writeInt(values.length);
+        for (int i = 0; i < values.length; ) {
+            reserve(4);
+            int count = Math.min(values.length - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 4);
+            i += count;
+        }
+    }
+
+    /**
+     * Write an array of doubles as a length and the values
+     * @param values the values
+     * @throws IOException if the file can't be written
+     */
+    private void writeDoubles(double[] values) throws IOException {
+        writeInt(values.length);
+        for (int i = 0; i < values.length; ) {
+            reserve(8);
+            int count = Math.min(values.length - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 8);
+            i += count;
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package util.graph;
+
+/**
+ * Prim's spanning tree algorithm for complete graphs given as a
+ * dense weight matrix.  Runs in O(n^2) time without building any
+ * node or edge objects, and produces the tree directly as a parent
+ * array rooted at a chosen node.
+ * @version 1.0
+ */
+public class PrimsMST {
+
+    /**
+     * Whether to find the maximum rather than minimum spanning tree
+     */
+    private boolean maximum;
+
+    /**
+     * The parent of each node, -1 for the root
+     */
+    private int[] parents;
+
+    /**
+     * The nodes in the order they were added to the tree,
+     * every node comes after its parent
+     */
+    private int[] order;
+
+    /**
+     * Make a new minimum spanning tree algorithm
+     */
+    public PrimsMST() {
+        this(false);
+    }
+
+    /**
+     * Make a new spanning tree algorithm
+     * @param maximum true to find the maximum spanning tree
+     */
+    public PrimsMST(boolean maximum) {
+        this.maximum = maximum;
+    }
+
+    /**
+     * Find the spanning tree of the complete graph with the given weights.
+     * Only the lower triangle is read, the weight between i and j is
+     * weights[max(i,j)][min(i,j)], so a jagged lower triangular array works.
+     * Ties are broken towards the lowest node index.
+     * @param weights the edge weights
+     * @param root the node to root the tree at
+     * @return the parent array, -1 for the root
+     */
+    public int[] transform(double[][] weights, int root) {
+        int n = weights.length;
+        parents = new int[n];
+        order = new int[n];
+        // best[i] is the best weight connecting i to the tree so far
+        double[] best = new double[n];
+        boolean[] inTree = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            parents[i] = -1;
+            best[i] = maximum ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int cur = root;
+        for (int k = 0; k < n; k++) {
+            inTree[cur] = true;
+            order[k] = cur;
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (inTree[i]) {
+                    continue;
+                }
+                double w = i > cur ? weights[i][cur] : weights[cur][i];
+                if (maximum ? w > best[i] : w < best[i]) {
+                    best[i] = w;
+                    parents[i] = cur;
+                }
+                if (next == -1 || (maximum ? best[i] > best[next] : best[i] < best[next])) {
+                    next = i;
+                }
+            }
+            if (next != -1 && parents[next] == -1) {
+                // only happens with infinite or NaN weights
+                parents[next] = cur;
+            }
+            cur = next;
+        }
+        return parents;
+    }
+
+    /**
+     * Get the parent array of the last tree found
+     * @return the parents, -1 for the root
+     */
+    public int[] getParents() {
+        return parents;
+    }
+
+    /**
+     * Get the order nodes were added to the last tree found,
+     * which lists every node after its parent
+     * @return the order
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the children of every node in a parent array
+     * @param parents the parent array
+     * @return children[i] lists the children of i in increasing order
+     */
+    public static int[][] children(int[] parents) {
+        int[] counts = new int[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            if (parents[i] >= 0) {
+                counts[parents[i]]++;
+            }
+        }
+        int[][] children = new int[parents.length][];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < parents.length; i++) {
+            if (parents[i] >= 0) {
+                children[parents[i]][counts[parents[i]]++] = i;
+            }
+        }
+        return children;
+    }
+
+}
@@ -0,0 +1,193 @@
+package util.linalg;
+
+import java.util.Arrays;
+
+import shared.Copyable;
+
+/**
+ * A vector of zeros and ones packed sixty four to a word,
+ * for bit string optimization problems where a dense vector
+ * of doubles wastes memory and cache
+ * @version 1.0
+ */
+public class BitVector extends Vector {
+
+    /**
+     * The packed bits, bit i is bit (i % 64) of word (i / 64)
+     */
+    private long[] words;
+
+    /**
+     * The number of bits
+     */
+    private int size;
+
+    /**
+     * Make a new bit vector from packed words
+     * @param words the words, bits past size must be zero
+     * @param size the number of bits
+     */
+    public BitVector(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Make a new bit vector of all zeros
+     * @param size the number of bits
+     */
+    public BitVector(int size) {
+        this(new long[wordCount(size)], size);
+    }
+
+    /**
+     * Get the number of words needed to hold the given number of bits
+     * @param size the number of bits
+     * @return the number of words
+     */
+    public static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Get a mask of the bits in the last word that are in use
+     * @param size the number of bits
+     * @return the mask
+     */
+    public static long lastWordMask(int size) {
+        return (size & 63) == 0 ? -1L : (1L << size) - 1;
+    }
+
+    /**
+     * @see util.linalg.Vector#size()
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @see util.linalg.Vector#get(int)
+     */
+    public double get(int i) {
+        return (words[i >>> 6] >>> i) & 1L;
+    }
+
+    /**
+     * Get a bit
+     * @param i the bit to get
+     * @return true if it is one
+     */
+    public boolean getBit(int i) {
+        return ((words[i >>> 6] >>> i) & 1L) != 0;
+    }
+
+    /**
+     * @see util.linalg.Vector#set(int, double)
+     */
+    public void set(int i, double d) {
+        if (d == 1) {
+            words[i >>> 6] |= 1L << i;
+        } else if (d == 0) {
+            words[i >>> 6] &= ~(1L << i);
+        } else {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Set a bit
+     * @param i the bit to set
+     * @param b the new value
+     */
+    public void setBit(int i, boolean b) {
+        if (b) {
+            words[i >>> 6] |= 1L << i;
+        } else {
+            words[i >>> 6] &= ~(1L << i);
+        }
+    }
+
+    /**
+     * Flip a bit
+     * @param i the bit to flip
+     */
+    public void flip(int i) {
+        words[i >>> 6] ^= 1L << i;
+    }
+
+    /**
+     * Get the number of ones in the vector
+     * @return the number of ones
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Get the packed words backing this vector
+     * @return the words
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * @see util.linalg.Vector#sum()
+     */
+    public double sum() {
+        return cardinality();
+    }
+
+    /**
+     * @see util.linalg.Vector#dotProduct(util.linalg.Vector)
+     */
+    public double dotProduct(Vector vector) {
+        if (!(vector instanceof BitVector)) {
+            return super.dotProduct(vector);
+        }
+        long[] other = ((BitVector) vector).words;
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            count += Long.bitCount(words[i] & other[i]);
+        }
+        return count;
+    }
+
+    /**
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        return new BitVector(words.clone(), size);
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    public boolean equals(Object o) {
+        if (!(o instanceof BitVector)) {
+            return super.equals(o);
+        }
+        BitVector v = (BitVector) o;
+        if (v.size != size) {
+            return false;
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != v.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        return 31 * Arrays.hashCode(words) + size;
+    }
+
+}
@@ -1,85 +1,217 @@
 package util.linalg;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Calculates A = L*Lt where A is a symmetric
  * positive definite matrix and L is a lower triangular matrix.
+ * The factor is kept packed row by row in a single array,
+ * so row i of L starts at i*(i+1)/2.  It is computed left looking
+ * a block of columns at a time: each block is first updated with
+ * the columns to its left, a chunk of columns at a time so the rows
+ * being read stay in cache, and then factored.  The rows below the
+ * diagonal block are independent of each other and are split
+ * across a fork join pool.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class CholeskyFactorization {
-	
 	/**
-	 * The lower triangular matrix
+	 * The number of columns factored together
+	 */
+	private static final int BLOCK_SIZE = 64;
+
+	/**
+	 * The number of columns of the update done at a time
+	 */
+	private static final int CHUNK_SIZE = 256;
+
+	/**
+	 * The number of rows updated by a single task
+	 */
+	private static final int ROWS_PER_TASK = 32;
+
+	/**
+	 * The size above which factorization is split across the pool
+	 */
+	private static final int PARALLEL_THRESHOLD = 256;
+
+	/**
+	 * The size of the matrix
+	 */
+	private int n;
+
+	/**
+	 * The packed rows of the lower triangular factor
+	 */
+	private double[] factor;
+
+	/**
+	 * The lower triangular matrix, made when asked for
 	 */
 	private LowerTriangularMatrix l;
-	
+
 	/**
-	 * The transpose of the matrix
+	 * The transpose of the matrix, made when asked for
 	 */
 	private UpperTriangularMatrix lt;
-	
+
 	/**
 	 * Create a cholesky factorization of the given matrix
 	 * @param a the matrix to factor
+	 * @param pool the pool to split large factorizations
+	 * across, or null to factor on the calling thread
+	 * @throws IllegalArgumentException if the packed factor
+	 * is too large to fit in an array
+	 */
+	public CholeskyFactorization(Matrix a, ForkJoinPool pool) {
+		n = a.n();
+		long size = (long) n * (n + 1) / 2;
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Can't factor a " + n + " by " + n
+				+ " matrix, its factor has " + size + " entries");
+		}
+		factor = new double[(int) size];
+		// copy in the lower triangle
+		if (a instanceof RectangularMatrix) {
+			double[][] data = ((RectangularMatrix) a).getData();
+			for (int i = 0; i < n; i++) {
+				System.arraycopy(data[i], 0, factor, row(i), i + 1);
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				int ri = row(i);
+				for (int j = 0; j <= i; j++) {
+					factor[ri + j] = a.get(i, j);
+				}
+			}
+		}
+		decompose(pool);
+	}
+
+	/**
+	 * Create a cholesky factorization of the given matrix,
+	 * splitting large factorizations across the common pool
+	 * @param a the matrix to factor
 	 */
 	public CholeskyFactorization(Matrix a) {
-		l = new LowerTriangularMatrix(a);
-		decompose();
-	}
-	
-	/**
-	 * Factors the matrix l inplace.
-	 */
-	private void decompose() {
-		// loop through the diagonal of the matrix
-		for (int j = 0; j < l.n(); j++) {
-			// sqrt the diagonal
-			l.set(j,j, Math.sqrt(l.get(j,j)));
-			// divide the subdiagonal column by
-			// the diagonal
-			for (int i = j + 1; i < l.m(); i++) {
-				l.set(i,j, l.get(i,j) / l.get(j,j));
+		this(a, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Get the index where a row of the factor starts
+	 * @param i the row
+	 * @return the index
+	 */
+	private static int row(int i) {
+		return (int) ((long) i * (i + 1) / 2);
+	}
+
+	/**
+	 * Factors the packed matrix in place.
+	 * @param pool the pool to split the work across, or null
+	 */
+	private void decompose(ForkJoinPool pool) {
+		boolean parallel = pool != null && n >= PARALLEL_THRESHOLD;
+		// loop through the blocks of columns
+		for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+			int k1 = Math.min(n, k0 + BLOCK_SIZE);
+			// the diagonal block's rows depend on each other
+			factorRows(k0, k1, k0, k1);
+			// the rows below it don't
+			if (parallel && n - k1 > ROWS_PER_TASK) {
+				pool.invoke(new FactorTask(k0, k1, k1, n));
+			} else {
+				factorRows(k0, k1, k1, n);
 			}
-			// symmetric rank 1 update
-			// subtract the crossproduct of the
-			// subdiagonal column from the remaining
-			// lower diagonal
-			for (int jj = j + 1; jj < l.n(); jj++) {
-				for (int ii = jj; ii < l.m(); ii++) {
-					l.set(ii,jj, l.get(ii,jj) 
-					    - l.get(ii,j) * l.get(jj,j));
+		}
+	}
+
+	/**
+	 * Compute the entries of a range of rows in a block of columns
+	 * @param k0 the first column of the block inclusive
+	 * @param k1 the last column of the block exclusive
+	 * @param start the first row inclusive
+	 * @param end the last row exclusive
+	 */
+	private void factorRows(int k0, int k1, int start, int end) {
+		// subtract the crossproducts of the columns to the left
+		for (int p0 = 0; p0 < k0; p0 += CHUNK_SIZE) {
+			int p1 = Math.min(k0, p0 + CHUNK_SIZE);
+			for (int i = start; i < end; i++) {
+				int ri = row(i);
+				int je = Math.min(i + 1, k1);
+				for (int j = k0; j < je; j++) {
+					int rj = row(j);
+					double sum = 0;
+					for (int p = p0; p < p1; p++) {
+						sum += factor[ri + p] * factor[rj + p];
+					}
+					factor[ri + j] -= sum;
+				}
+			}
+		}
+		// then finish the block itself
+		for (int i = start; i < end; i++) {
+			int ri = row(i);
+			int je = Math.min(i + 1, k1);
+			for (int j = k0; j < je; j++) {
+				int rj = row(j);
+				double sum = factor[ri + j];
+				for (int p = k0; p < j; p++) {
+					sum -= factor[ri + p] * factor[rj + p];
+				}
+				if (i == j) {
+					factor[ri + j] = Math.sqrt(sum);
+				} else {
+					factor[ri + j] = sum / factor[rj + j];
 				}
 			}
 		}
-		// set the l transpose
-		lt = (UpperTriangularMatrix) l.transpose();
 	}
 
 	/**
-	 * Get the lower triangular matrix 
+	 * Get the lower triangular matrix
 	 * @return the  matrix
 	 */
 	public LowerTriangularMatrix getL() {
+		if (l == null) {
+			LowerTriangularMatrix result = new LowerTriangularMatrix(n);
+			for (int i = 0; i < n; i++) {
+				int ri = row(i);
+				for (int j = 0; j <= i; j++) {
+					result.set(i, j, factor[ri + j]);
+				}
+			}
+			l = result;
+		}
 		return l;
 	}
-	
+
 	/**
 	 * Get the transpose matrix
 	 * @return the transpose
 	 */
 	public UpperTriangularMatrix getLt() {
+		if (lt == null) {
+			lt = (UpperTriangularMatrix) getL().transpose();
+		}
 		return lt;
 	}
-	
+
 	/**
 	 * Calculate the determinant
 	 * @return the determinant
 	 */
 	public double determinant() {
-		double d = l.determinant();
+		double d = 1;
+		for (int i = 0; i < n; i++) {
+			d *= factor[row(i) + i];
+		}
 		return d * d;
 	}
-	
+
 	/**
 	 * Solve the system of linear equations
 	 * for the given vector.  Find the column
@@ -88,10 +220,189 @@ public class CholeskyFactorization {
 	 * @return the solution
 	 */
 	public Vector solve(Vector b) {
-		// first solves L*y = b
-		Vector y = l.solve(b);
-		// now solves Lt*x = y
-		return lt.solve(y);
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = b.get(i);
+		}
+		solveInto(x, x);
+		return new DenseVector(x);
+	}
+
+	/**
+	 * Solve the system of linear equations for the given
+	 * vector into another vector without allocating.
+	 * @param b the column vector to solve for
+	 * @param x the vector to store the solution in,
+	 * which may be b to solve in place
+	 */
+	public void solveInto(Vector b, Vector x) {
+		if (b instanceof DenseVector && x instanceof DenseVector) {
+			solveInto(((DenseVector) b).getData(), ((DenseVector) x).getData());
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			x.set(i, b.get(i));
+		}
+		for (int i = 0; i < n; i++) {
+			int ri = row(i);
+			double sum = x.get(i);
+			for (int j = 0; j < i; j++) {
+				sum -= factor[ri + j] * x.get(j);
+			}
+			x.set(i, sum / factor[ri + i]);
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			int ri = row(i);
+			double xi = x.get(i) / factor[ri + i];
+			x.set(i, xi);
+			for (int j = 0; j < i; j++) {
+				x.set(j, x.get(j) - factor[ri + j] * xi);
+			}
+		}
+	}
+
+	/**
+	 * Solve the system of linear equations on arrays
+	 * @param b the values to solve for
+	 * @param x the array to store the solution in, which may be b
+	 */
+	public void solveInto(double[] b, double[] x) {
+		// first solves L*y = b by forward substitution
+		for (int i = 0; i < n; i++) {
+			int ri = row(i);
+			double sum = b[i];
+			for (int j = 0; j < i; j++) {
+				sum -= factor[ri + j] * x[j];
+			}
+			x[i] = sum / factor[ri + i];
+		}
+		// now solves Lt*x = y, a row of L is a column of Lt
+		for (int i = n - 1; i >= 0; i--) {
+			int ri = row(i);
+			double xi = x[i] / factor[ri + i];
+			x[i] = xi;
+			for (int j = 0; j < i; j++) {
+				x[j] -= factor[ri + j] * xi;
+			}
+		}
+	}
+
+	/**
+	 * Solve only the lower triangular half of the system, L*y = b,
+	 * for several right hand sides at once.  The columns of b are
+	 * overwritten with the solutions.
+	 * @param b the n by r matrix of right hand sides
+	 */
+	public void solveLowerInto(FlatMatrix b) {
+		double[] data = b.getData();
+		int r = b.n();
+		int stride = b.getStride();
+		int offset = b.getOffset();
+		for (int i = 0; i < n; i++) {
+			int ri = row(i);
+			int bi = offset + i * stride;
+			for (int j = 0; j < i; j++) {
+				double lij = factor[ri + j];
+				int bj = offset + j * stride;
+				for (int c = 0; c < r; c++) {
+					data[bi + c] -= lij * data[bj + c];
+				}
+			}
+			double lii = factor[ri + i];
+			for (int c = 0; c < r; c++) {
+				data[bi + c] /= lii;
+			}
+		}
+	}
+
+	/**
+	 * Solve the system of linear equations for several
+	 * right hand sides at once, overwriting them with the solutions
+	 * @param b the n by r matrix of right hand sides
+	 */
+	public void solveInto(FlatMatrix b) {
+		solveLowerInto(b);
+		double[] data = b.getData();
+		int r = b.n();
+		int stride = b.getStride();
+		int offset = b.getOffset();
+		for (int i = n - 1; i >= 0; i--) {
+			int ri = row(i);
+			int bi = offset + i * stride;
+			double lii = factor[ri + i];
+			for (int c = 0; c < r; c++) {
+				data[bi + c] /= lii;
+			}
+			for (int j = 0; j < i; j++) {
+				double lij = factor[ri + j];
+				int bj = offset + j * stride;
+				for (int c = 0; c < r; c++) {
+					data[bj + c] -= lij * data[bi + c];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve the system of linear equations for several right hand
+	 * sides at once.  Find the matrix X such that A*X = B.
+	 * @param b the matrix of right hand sides
+	 * @return the solution
+	 */
+	public Matrix solve(Matrix b) {
+		FlatMatrix x = new FlatMatrix(b);
+		solveInto(x);
+		return x;
+	}
+
+	/**
+	 * Get the size of the factored matrix
+	 * @return the size
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * A task that factors a range of rows in a block of
+	 * columns, splitting it in half until it is small enough
+	 */
+	private class FactorTask extends RecursiveAction {
+		/** The first column of the block inclusive */
+		private int k0;
+		/** The last column of the block exclusive */
+		private int k1;
+		/** The first row inclusive */
+		private int start;
+		/** The last row exclusive */
+		private int end;
+
+		/**
+		 * Make a new factor task
+		 * @param k0 the first column of the block inclusive
+		 * @param k1 the last column of the block exclusive
+		 * @param start the first row inclusive
+		 * @param end the last row exclusive
+		 */
+		public FactorTask(int k0, int k1, int start, int end) {
+			this.k0 = k0;
+			this.k1 = k1;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		protected void compute() {
+			if (end - start <= ROWS_PER_TASK) {
+				factorRows(k0, k1, start, end);
+				return;
+			}
+			int mid = (start + end) >>> 1;
+			invokeAll(new FactorTask(k0, k1, start, mid),
+				new FactorTask(k0, k1, mid, end));
+		}
 	}
 
 }
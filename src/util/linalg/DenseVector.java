@@ -1,5 +1,7 @@
 package util.linalg;
 
+import shared.Copyable;
+
 /**
  * An implementation of a vector that is dense
  * @author Andrew Guillory gtg008g@mail.gatech.edu
@@ -48,6 +50,65 @@ public class DenseVector extends Vector {
     public void set(int i, double value) {
         data[i] = value;
     }
+
+    /**
+     * Get the array backing this vector
+     * @return the data
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * @see util.linalg.Vector#dotProduct(util.linalg.Vector)
+     */
+    public double dotProduct(Vector vector) {
+        if (!(vector instanceof DenseVector)) {
+            return super.dotProduct(vector);
+        }
+        double[] other = ((DenseVector) vector).data;
+        double result = 0;
+        for (int i = 0; i < data.length; i++) {
+            result += data[i] * other[i];
+        }
+        return result;
+    }
+
+    /**
+     * @see util.linalg.Vector#plusEquals(double, util.linalg.Vector)
+     */
+    public void plusEquals(double scale, Vector vector) {
+        if (!(vector instanceof DenseVector)) {
+            super.plusEquals(scale, vector);
+            return;
+        }
+        double[] other = ((DenseVector) vector).data;
+        for (int i = 0; i < data.length; i++) {
+            data[i] += scale * other[i];
+        }
+    }
+
+    /**
+     * @see util.linalg.Vector#minusInto(util.linalg.Vector, util.linalg.Vector)
+     */
+    public void minusInto(Vector vector, Vector result) {
+        if (!(vector instanceof DenseVector && result instanceof DenseVector)) {
+            super.minusInto(vector, result);
+            return;
+        }
+        double[] other = ((DenseVector) vector).data;
+        double[] out = ((DenseVector) result).data;
+        for (int i = 0; i < data.length; i++) {
+            out[i] = data[i] - other[i];
+        }
+    }
+
+    /**
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        return new DenseVector(data.clone());
+    }
     
     /**
      * Make an identity vector 
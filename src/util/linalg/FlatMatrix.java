@@ -0,0 +1,407 @@
+package util.linalg;
+
+import shared.Copyable;
+
+/**
+ * A general matrix stored row major in a single array.
+ * Element (i, j) lives at data[offset + i * stride + j], so a
+ * sub matrix can be a view into the same array without copying,
+ * and whole matrices are one object for the garbage collector.
+ * @version 1.0
+ */
+public class FlatMatrix extends Matrix {
+    /**
+     * The size of the square blocks transposes and products work on
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * The data for the matrix
+     */
+    private double[] data;
+
+    /**
+     * The index of element (0, 0)
+     */
+    private int offset;
+
+    /**
+     * The distance between the starts of consecutive rows
+     */
+    private int stride;
+
+    /**
+     * The number of rows
+     */
+    private int m;
+
+    /**
+     * The number of columns
+     */
+    private int n;
+
+    /**
+     * Create a view of the given array
+     * @param data the data
+     * @param offset the index of element (0, 0)
+     * @param stride the distance between the starts of rows
+     * @param m the number of rows
+     * @param n the number of columns
+     */
+    public FlatMatrix(double[] data, int offset, int stride, int m, int n) {
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.m = m;
+        this.n = n;
+    }
+
+    /**
+     * Create a new matrix backed by the given row major array
+     * @param data the data
+     * @param m the number of rows
+     * @param n the number of columns
+     */
+    public FlatMatrix(double[] data, int m, int n) {
+        this(data, 0, n, m, n);
+    }
+
+    /**
+     * Create a new zeroed matrix
+     * @param m the number of rows
+     * @param n the number of columns
+     */
+    public FlatMatrix(int m, int n) {
+        this(new double[m * n], m, n);
+    }
+
+    /**
+     * Make a copy of the given matrix
+     * @param matrix the matrix
+     */
+    public FlatMatrix(Matrix matrix) {
+        this(matrix.m(), matrix.n());
+        if (matrix instanceof RectangularMatrix) {
+            double[][] rows = ((RectangularMatrix) matrix).getData();
+            for (int i = 0; i < m; i++) {
+                System.arraycopy(rows[i], 0, data, i * n, n);
+            }
+        } else if (matrix instanceof FlatMatrix) {
+            FlatMatrix flat = (FlatMatrix) matrix;
+            for (int i = 0; i < m; i++) {
+                System.arraycopy(flat.data, flat.offset + i * flat.stride, data, i * n, n);
+            }
+        } else {
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    data[i * n + j] = matrix.get(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * @see util.linalg.Matrix#m()
+     */
+    public int m() {
+        return m;
+    }
+
+    /**
+     * @see util.linalg.Matrix#n()
+     */
+    public int n() {
+        return n;
+    }
+
+    /**
+     * @see util.linalg.Matrix#get(int, int)
+     */
+    public double get(int i, int j) {
+        return data[offset + i * stride + j];
+    }
+
+    /**
+     * @see util.linalg.Matrix#set(int, int, double)
+     */
+    public void set(int i, int j, double d) {
+        data[offset + i * stride + j] = d;
+    }
+
+    /**
+     * Get a view of a sub matrix, which shares this matrix's
+     * storage so changes to either are seen by both
+     * @see util.linalg.Matrix#get(int, int, int, int)
+     */
+    public Matrix get(int ia, int ib, int ja, int jb) {
+        return new FlatMatrix(data, offset + ia * stride + ja, stride, ib - ia, jb - ja);
+    }
+
+    /**
+     * Get the array backing this matrix
+     * @return the data
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * Get the index of element (0, 0) in the backing array
+     * @return the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the distance between the starts of rows in the backing array
+     * @return the stride
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Whether the rows are packed together with no gaps,
+     * so the matrix is the array range [offset, offset + m * n)
+     * @return true if contiguous
+     */
+    public boolean isContiguous() {
+        return stride == n || m <= 1;
+    }
+
+    /**
+     * @see util.linalg.Matrix#transpose()
+     */
+    public Matrix transpose() {
+        double[] result = new double[m * n];
+        // go a block at a time so neither array is walked by column for long
+        for (int ii = 0; ii < m; ii += BLOCK_SIZE) {
+            int ie = Math.min(m, ii + BLOCK_SIZE);
+            for (int jj = 0; jj < n; jj += BLOCK_SIZE) {
+                int je = Math.min(n, jj + BLOCK_SIZE);
+                for (int i = ii; i < ie; i++) {
+                    int row = offset + i * stride;
+                    for (int j = jj; j < je; j++) {
+                        result[j * m + i] = data[row + j];
+                    }
+                }
+            }
+        }
+        return new FlatMatrix(result, n, m);
+    }
+
+    /**
+     * @see util.linalg.Matrix#getRow(int)
+     */
+    public Vector getRow(int index) {
+        double[] result = new double[n];
+        System.arraycopy(data, offset + index * stride, result, 0, n);
+        return new DenseVector(result);
+    }
+
+    /**
+     * @see util.linalg.Matrix#getColumn(int)
+     */
+    public Vector getColumn(int index) {
+        double[] result = new double[m];
+        for (int i = 0, k = offset + index; i < m; i++, k += stride) {
+            result[i] = data[k];
+        }
+        return new DenseVector(result);
+    }
+
+    /**
+     * Multiply directly on the backing arrays when the
+     * other matrix is flat too, a block at a time
+     * @see util.linalg.Matrix#times(util.linalg.Matrix)
+     * @throws IllegalArgumentException if the other matrix
+     * doesn't have as many rows as this one has columns
+     */
+    public Matrix times(Matrix matrix) {
+        if (!(matrix instanceof FlatMatrix)) {
+            return super.times(matrix);
+        }
+        FlatMatrix b = (FlatMatrix) matrix;
+        if (b.m != n) {
+            throw new IllegalArgumentException("Can't multiply a " + m + " by " + n
+                + " matrix by a " + b.m + " by " + b.n + " matrix");
+        }
+        int columns = b.n;
+        double[] result = new double[m * columns];
+        for (int jj = 0; jj < columns; jj += BLOCK_SIZE) {
+            int je = Math.min(columns, jj + BLOCK_SIZE);
+            for (int kk = 0; kk < n; kk += BLOCK_SIZE) {
+                int ke = Math.min(n, kk + BLOCK_SIZE);
+                for (int i = 0; i < m; i++) {
+                    int ai = offset + i * stride;
+                    int ri = i * columns;
+                    for (int k = kk; k < ke; k++) {
+                        double aik = data[ai + k];
+                        int bk = b.offset + k * b.stride;
+                        for (int j = jj; j < je; j++) {
+                            result[ri + j] += aik * b.data[bk + j];
+                        }
+                    }
+                }
+            }
+        }
+        return new FlatMatrix(result, m, columns);
+    }
+
+    /**
+     * Multiply directly on the backing arrays when the vector is dense
+     * @see util.linalg.Matrix#times(util.linalg.Vector)
+     */
+    public Vector times(Vector vector) {
+        if (!(vector instanceof DenseVector)) {
+            return super.times(vector);
+        }
+        DenseVector result = new DenseVector(m);
+        timesInto(vector, result);
+        return result;
+    }
+
+    /**
+     * @see util.linalg.Matrix#timesInto(util.linalg.Vector, util.linalg.Vector)
+     * @throws IllegalArgumentException if the vector is shorter
+     * than a row or the result is shorter than a column
+     */
+    public void timesInto(Vector vector, Vector result) {
+        if (!(vector instanceof DenseVector && result instanceof DenseVector)) {
+            super.timesInto(vector, result);
+            return;
+        }
+        double[] v = ((DenseVector) vector).getData();
+        double[] r = ((DenseVector) result).getData();
+        if (v.length < n || r.length < m) {
+            throw new IllegalArgumentException("Can't multiply a " + m + " by " + n
+                + " matrix by a vector of size " + v.length + " into one of size " + r.length);
+        }
+        for (int i = 0; i < m; i++) {
+            int row = offset + i * stride;
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += data[row + j] * v[j];
+            }
+            r[i] = sum;
+        }
+    }
+
+    /**
+     * @see util.linalg.Matrix#transposeTimesInto(util.linalg.Vector, util.linalg.Vector)
+     * @throws IllegalArgumentException if the vector is shorter
+     * than a column or the result is shorter than a row
+     */
+    public void transposeTimesInto(Vector vector, Vector result) {
+        if (!(vector instanceof DenseVector && result instanceof DenseVector)) {
+            super.transposeTimesInto(vector, result);
+            return;
+        }
+        double[] v = ((DenseVector) vector).getData();
+        double[] r = ((DenseVector) result).getData();
+        if (v.length < m || r.length < n) {
+            throw new IllegalArgumentException("Can't multiply the transpose of a " + m
+                + " by " + n + " matrix by a vector of size " + v.length
+                + " into one of size " + r.length);
+        }
+        for (int j = 0; j < n; j++) {
+            r[j] = 0;
+        }
+        for (int i = 0; i < m; i++) {
+            int row = offset + i * stride;
+            double vi = v[i];
+            for (int j = 0; j < n; j++) {
+                r[j] += data[row + j] * vi;
+            }
+        }
+    }
+
+    /**
+     * @see util.linalg.Matrix#timesEquals(double)
+     */
+    public void timesEquals(double scale) {
+        for (int i = 0; i < m; i++) {
+            int row = offset + i * stride;
+            for (int j = 0; j < n; j++) {
+                data[row + j] *= scale;
+            }
+        }
+    }
+
+    /**
+     * @see util.linalg.Matrix#plusEquals(util.linalg.Matrix)
+     * @throws IllegalArgumentException if the matrices aren't the same size
+     */
+    public void plusEquals(Matrix matrix) {
+        if (!(matrix instanceof FlatMatrix)) {
+            super.plusEquals(matrix);
+            return;
+        }
+        FlatMatrix b = (FlatMatrix) matrix;
+        checkSameSize(b);
+        for (int i = 0; i < m; i++) {
+            int row = offset + i * stride;
+            int other = b.offset + i * b.stride;
+            for (int j = 0; j < n; j++) {
+                data[row + j] += b.data[other + j];
+            }
+        }
+    }
+
+    /**
+     * @see util.linalg.Matrix#minusEquals(util.linalg.Matrix)
+     * @throws IllegalArgumentException if the matrices aren't the same size
+     */
+    public void minusEquals(Matrix matrix) {
+        if (!(matrix instanceof FlatMatrix)) {
+            super.minusEquals(matrix);
+            return;
+        }
+        FlatMatrix b = (FlatMatrix) matrix;
+        checkSameSize(b);
+        for (int i = 0; i < m; i++) {
+            int row = offset + i * stride;
+            int other = b.offset + i * b.stride;
+            for (int j = 0; j < n; j++) {
+                data[row + j] -= b.data[other + j];
+            }
+        }
+    }
+
+    /**
+     * Check that another matrix is the same size as this one,
+     * since a view that is too small would read past its rows
+     * into whatever else shares its array
+     * @param b the other matrix
+     * @throws IllegalArgumentException if it isn't
+     */
+    private void checkSameSize(FlatMatrix b) {
+        if (b.m != m || b.n != n) {
+            throw new IllegalArgumentException("Can't combine a " + m + " by " + n
+                + " matrix with a " + b.m + " by " + b.n + " matrix");
+        }
+    }
+
+    /**
+     * Make a compact copy of this matrix
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        return new FlatMatrix(this);
+    }
+
+    /**
+     * Make a m by m identity matrix
+     * @param m the size of the matrix
+     * @return the matrix
+     */
+    public static FlatMatrix eye(int m) {
+        FlatMatrix result = new FlatMatrix(m, m);
+        for (int i = 0; i < m; i++) {
+            result.data[i * m + i] = 1;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,91 @@
+package util.linalg;
+
+import shared.Copyable;
+
+/**
+ * A vector of small integers, for discrete optimization
+ * problems whose values have ranges larger than two
+ * @version 1.0
+ */
+public class IntVector extends Vector {
+
+    /**
+     * The data
+     */
+    private int[] data;
+
+    /**
+     * Make a new int vector
+     * @param data the data
+     */
+    public IntVector(int[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Make a new int vector of all zeros
+     * @param size the size to make it
+     */
+    public IntVector(int size) {
+        data = new int[size];
+    }
+
+    /**
+     * @see util.linalg.Vector#size()
+     */
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * @see util.linalg.Vector#get(int)
+     */
+    public double get(int i) {
+        return data[i];
+    }
+
+    /**
+     * Get an element as an int
+     * @param i the element to get
+     * @return the element
+     */
+    public int getInt(int i) {
+        return data[i];
+    }
+
+    /**
+     * @see util.linalg.Vector#set(int, double)
+     */
+    public void set(int i, double d) {
+        int value = (int) d;
+        if (value != d) {
+            throw new UnsupportedOperationException();
+        }
+        data[i] = value;
+    }
+
+    /**
+     * Set an element
+     * @param i the element to set
+     * @param value the new value
+     */
+    public void setInt(int i, int value) {
+        data[i] = value;
+    }
+
+    /**
+     * Get the array backing this vector
+     * @return the data
+     */
+    public int[] getData() {
+        return data;
+    }
+
+    /**
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        return new IntVector(data.clone());
+    }
+
+}
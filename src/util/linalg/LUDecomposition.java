@@ -24,7 +24,7 @@ public class LUDecomposition {
      * @param a the matrix to decompose
      */
     public LUDecomposition(Matrix a) {
-        decompose((Matrix) a.copy());
+        decompose(new FlatMatrix(a));
     }
     
     /**
@@ -35,19 +35,23 @@ public class LUDecomposition {
      * u if needed.
      * @param a the matrix to decompose
      */
-    private void decompose(Matrix a) {
+    private void decompose(FlatMatrix a) {
         int mnmin = Math.min(a.m(), a.n());
+        int n = a.n();
+        double[] data = a.getData();
         // loop through each column to be elimnated
         for (int k = 0; k < mnmin; k++) {
             // divide the column by the pivot
-            double pivot = a.get(k,k);
+            double pivot = data[k * n + k];
             for (int i = k + 1; i < a.m(); i++) {
-                a.set(i,k, a.get(i,k) / pivot);
+                data[i * n + k] /= pivot;
             }
             // subtract out the outer product update for this step
             for (int i = k + 1; i < a.m(); i++) {
-                for (int j = k + 1; j < a.n(); j++) {
-                    a.set(i,j, a.get(i,j) - a.get(i,k) * a.get(k,j));
+                int row = i * n;
+                double aik = data[row + k];
+                for (int j = k + 1, kj = k * n + k + 1; j < n; j++, kj++) {
+                    data[row + j] -= aik * data[kj];
                 }
             }
         }
@@ -131,18 +131,51 @@ public class LowerTriangularMatrix extends Matrix {
 	 * @return the solution vector
 	 */
 	public Vector solve(Vector b) {
-		b = (Vector) b.copy();
-		// solve by forward substiution 
-		// overwriting the copy of b with the solution x
-		b.set(0, b.get(0) / get(0,0));
+		Vector x = (Vector) b.copy();
+		solveInto(x, x);
+		return x;
+	}
+
+	/**
+	 * Solve this lower triangular system for the given
+	 * vector into another vector without allocating.
+	 * Solves A*x = b for the given b.
+	 * @param b the vector to solve for
+	 * @param x the vector to store the solution in,
+	 * which may be b to solve in place
+	 */
+	public void solveInto(Vector b, Vector x) {
+		if (b instanceof DenseVector && x instanceof DenseVector) {
+			solveInto(((DenseVector) b).getData(), ((DenseVector) x).getData());
+			return;
+		}
+		// solve by forward substiution
+		x.set(0, b.get(0) / get(0,0));
 		for (int i = 1; i < b.size(); i++) {
 			double sum = 0;
 			for (int j = 0; j < i; j++) {
-				sum += get(i, j) * b.get(j);
+				sum += get(i, j) * x.get(j);
+			}
+			x.set(i, (b.get(i) - sum) / get(i,i));
+		}
+	}
+
+	/**
+	 * Solve this lower triangular system on arrays
+	 * @param b the values to solve for
+	 * @param x the array to store the solution in, which may be b
+	 */
+	public void solveInto(double[] b, double[] x) {
+		// solve by forward substiution
+		x[0] = b[0] / data[0][0];
+		for (int i = 1; i < b.length; i++) {
+			double[] row = data[i];
+			double sum = 0;
+			for (int j = 0; j < i; j++) {
+				sum += row[j] * x[j];
 			}
-			b.set(i, (b.get(i) - sum) / get(i,i));
+			x[i] = (b[i] - sum) / row[i];
 		}
-		return b;
 	}
     
     /**
@@ -171,6 +171,55 @@ public abstract class Matrix implements Serializable, Copyable {
         return new DenseVector(result);
     }
     
+    /**
+     * Multiply with a vector into another vector,
+     * result = this * vector
+     * @param vector the vector to multiply by
+     * @param result the vector to store the result in,
+     * which must not be the vector multiplied by
+     */
+    public void timesInto(Vector vector, Vector result) {
+        for (int row = 0; row < m(); row++) {
+            double sum = 0;
+            for (int i = 0; i < n(); i++) {
+                sum += get(row, i) * vector.get(i);
+            }
+            result.set(row, sum);
+        }
+    }
+
+    /**
+     * Multiply the transpose of this matrix with a vector
+     * into another vector without forming the transpose,
+     * result = this' * vector
+     * @param vector the vector to multiply by
+     * @param result the vector to store the result in,
+     * which must not be the vector multiplied by
+     */
+    public void transposeTimesInto(Vector vector, Vector result) {
+        for (int column = 0; column < n(); column++) {
+            result.set(column, 0);
+        }
+        for (int i = 0; i < m(); i++) {
+            double v = vector.get(i);
+            for (int column = 0; column < n(); column++) {
+                result.set(column, result.get(column) + get(i, column) * v);
+            }
+        }
+    }
+
+    /**
+     * Store the transpose of this matrix into another matrix
+     * @param result the n by m matrix to store the transpose in
+     */
+    public void transposeInto(Matrix result) {
+        for (int i = 0; i < m(); i++) {
+            for (int j = 0; j < n(); j++) {
+                result.set(j, i, get(i, j));
+            }
+        }
+    }
+
     /**
      * Multiply the matrix by a scale
      * @param scale the scale
@@ -26,7 +26,7 @@ public class QRDecomposition {
      */
     public QRDecomposition(Matrix matrix) {
         q = RectangularMatrix.eye(matrix.m());
-        decompose((Matrix) matrix.copy());
+        decompose(new FlatMatrix(matrix));
     }
      
     /**
@@ -1,5 +1,8 @@
 package util.linalg;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import dist.Distribution;
 
 /**
@@ -8,6 +11,22 @@ import dist.Distribution;
  * @version 1.0
  */
 public class RectangularMatrix extends Matrix {
+    /**
+     * The size of the square blocks multiplication works on,
+     * a block of each operand fits comfortably in cache
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * The number of multiply adds above which
+     * products are split across the pool
+     */
+    private static final long PARALLEL_THRESHOLD = 1L << 21;
+
+    /**
+     * The pool large products are split across, or null
+     */
+    private static ForkJoinPool pool = ForkJoinPool.commonPool();
 	
 	/**
 	 * The data for the matrix
@@ -80,6 +99,199 @@ public class RectangularMatrix extends Matrix {
 		return data;
 	}
 
+    /**
+     * Set the pool large matrix products are split across
+     * @param p the pool, or null to always multiply on the calling thread
+     */
+    public static void setPool(ForkJoinPool p) {
+        pool = p;
+    }
+
+    /**
+     * Get the pool large matrix products are split across
+     * @return the pool, or null
+     */
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Multiply directly on the backing arrays when the other matrix
+     * is rectangular too, a block at a time so that the rows of both
+     * operands stay in cache.  Each entry is still summed in order
+     * so the results are the same as the general product.
+     * @see util.linalg.Matrix#times(util.linalg.Matrix)
+     * @throws IllegalArgumentException if the other matrix
+     * doesn't have as many rows as this one has columns
+     */
+    public Matrix times(Matrix matrix) {
+        if (!(matrix instanceof RectangularMatrix)) {
+            return super.times(matrix);
+        }
+        if (matrix.m() != n()) {
+            throw new IllegalArgumentException("Can't multiply a " + m() + " by " + n()
+                + " matrix by a " + matrix.m() + " by " + matrix.n() + " matrix");
+        }
+        double[][] b = ((RectangularMatrix) matrix).data;
+        double[][] result = new double[m()][matrix.n()];
+        long work = (long) m() * n() * matrix.n();
+        if (pool == null || work < PARALLEL_THRESHOLD || m() <= BLOCK_SIZE) {
+            times(data, b, result, 0, result.length);
+        } else {
+            pool.invoke(new TimesTask(data, b, result, 0, result.length));
+        }
+        return new RectangularMatrix(result);
+    }
+
+    /**
+     * Multiply directly on the backing arrays when the vector is dense
+     * @see util.linalg.Matrix#times(util.linalg.Vector)
+     */
+    public Vector times(Vector vector) {
+        if (!(vector instanceof DenseVector)) {
+            return super.times(vector);
+        }
+        DenseVector result = new DenseVector(m());
+        timesInto(vector, result);
+        return result;
+    }
+
+    /**
+     * @see util.linalg.Matrix#timesInto(util.linalg.Vector, util.linalg.Vector)
+     * @throws IllegalArgumentException if the vector is shorter
+     * than a row or the result is shorter than a column
+     */
+    public void timesInto(Vector vector, Vector result) {
+        if (!(vector instanceof DenseVector && result instanceof DenseVector)) {
+            super.timesInto(vector, result);
+            return;
+        }
+        double[] v = ((DenseVector) vector).getData();
+        double[] r = ((DenseVector) result).getData();
+        int n = n();
+        if (v.length < n || r.length < data.length) {
+            throw new IllegalArgumentException("Can't multiply a " + m() + " by " + n
+                + " matrix by a vector of size " + v.length + " into one of size " + r.length);
+        }
+        for (int row = 0; row < data.length; row++) {
+            double[] a = data[row];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += a[i] * v[i];
+            }
+            r[row] = sum;
+        }
+    }
+
+    /**
+     * @see util.linalg.Matrix#transposeTimesInto(util.linalg.Vector, util.linalg.Vector)
+     * @throws IllegalArgumentException if the vector is shorter
+     * than a column or the result is shorter than a row
+     */
+    public void transposeTimesInto(Vector vector, Vector result) {
+        if (!(vector instanceof DenseVector && result instanceof DenseVector)) {
+            super.transposeTimesInto(vector, result);
+            return;
+        }
+        double[] v = ((DenseVector) vector).getData();
+        double[] r = ((DenseVector) result).getData();
+        int n = n();
+        if (v.length < data.length || r.length < n) {
+            throw new IllegalArgumentException("Can't multiply the transpose of a " + m()
+                + " by " + n + " matrix by a vector of size " + v.length
+                + " into one of size " + r.length);
+        }
+        for (int j = 0; j < n; j++) {
+            r[j] = 0;
+        }
+        for (int i = 0; i < data.length; i++) {
+            double[] a = data[i];
+            double vi = v[i];
+            for (int j = 0; j < n; j++) {
+                r[j] += a[j] * vi;
+            }
+        }
+    }
+
+    /**
+     * Multiply a range of rows of a by b, adding into result
+     * @param a the left operand
+     * @param b the right operand
+     * @param result the result
+     * @param start the first row inclusive
+     * @param end the last row exclusive
+     */
+    private static void times(double[][] a, double[][] b, double[][] result,
+            int start, int end) {
+        // the columns of a, which times checked against the rows of b
+        int inner = a.length == 0 ? 0 : a[0].length;
+        int columns = result.length == 0 ? 0 : result[0].length;
+        for (int jj = 0; jj < columns; jj += BLOCK_SIZE) {
+            int je = Math.min(columns, jj + BLOCK_SIZE);
+            for (int kk = 0; kk < inner; kk += BLOCK_SIZE) {
+                int ke = Math.min(inner, kk + BLOCK_SIZE);
+                for (int i = start; i < end; i++) {
+                    double[] ai = a[i];
+                    double[] ri = result[i];
+                    for (int k = kk; k < ke; k++) {
+                        double aik = ai[k];
+                        double[] bk = b[k];
+                        for (int j = jj; j < je; j++) {
+                            ri[j] += aik * bk[j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A task that multiplies a range of rows,
+     * splitting it in half until it is a single block
+     */
+    private static class TimesTask extends RecursiveAction {
+        /** The left operand */
+        private double[][] a;
+        /** The right operand */
+        private double[][] b;
+        /** The result */
+        private double[][] result;
+        /** The first row inclusive */
+        private int start;
+        /** The last row exclusive */
+        private int end;
+
+        /**
+         * Make a new times task
+         * @param a the left operand
+         * @param b the right operand
+         * @param result the result
+         * @param start the first row inclusive
+         * @param end the last row exclusive
+         */
+        public TimesTask(double[][] a, double[][] b, double[][] result,
+                int start, int end) {
+            this.a = a;
+            this.b = b;
+            this.result = result;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            if (end - start <= BLOCK_SIZE) {
+                times(a, b, result, start, end);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new TimesTask(a, b, result, start, mid),
+                new TimesTask(a, b, result, mid, end));
+        }
+    }
+
     
 	/**
 	 * Make a m by m identity matrix
@@ -133,19 +133,54 @@ public class UpperTriangularMatrix extends Matrix {
 	 * @return the solution vector
 	 */
 	public Vector solve(Vector b) {
-		b = (Vector) b.copy();
+		Vector x = (Vector) b.copy();
+		solveInto(x, x);
+		return x;
+	}
+
+	/**
+	 * Solve this upper triangular system for the given
+	 * vector into another vector without allocating.
+	 * Solves A*x = b for the given b.
+	 * @param b the vector to solve for
+	 * @param x the vector to store the solution in,
+	 * which may be b to solve in place
+	 */
+	public void solveInto(Vector b, Vector x) {
+		if (b instanceof DenseVector && x instanceof DenseVector) {
+			solveInto(((DenseVector) b).getData(), ((DenseVector) x).getData());
+			return;
+		}
 		// solve with backward substitution
-		// overwriting the copy of b with the solution x
-		b.set(b.size() - 1, b.get(b.size() - 1) /
+		x.set(b.size() - 1, b.get(b.size() - 1) /
 			get(b.size() - 1, b.size() - 1));
 		for (int i = b.size() - 2; i >= 0; i--) {
 			double sum = 0;
 			for (int j = i+1; j < b.size(); j++) {
-				sum += get(i,j)*b.get(j);	    
+				sum += get(i,j)*x.get(j);
+			}
+			x.set(i, (b.get(i) - sum) / get(i,i));
+		}
+	}
+
+	/**
+	 * Solve this upper triangular system on arrays
+	 * @param b the values to solve for
+	 * @param x the array to store the solution in, which may be b
+	 */
+	public void solveInto(double[] b, double[] x) {
+		// solve with backward substitution,
+		// row i holds columns i and up
+		int last = b.length - 1;
+		x[last] = b[last] / data[last][0];
+		for (int i = last - 1; i >= 0; i--) {
+			double[] row = data[i];
+			double sum = 0;
+			for (int j = i + 1; j < b.length; j++) {
+				sum += row[j - i] * x[j];
 			}
-			b.set(i, (b.get(i) - sum) / get(i,i));
+			x[i] = (b[i] - sum) / row[0];
 		}
-		return b;
 	}
     
     /**
@@ -240,6 +240,53 @@ public abstract class Vector implements Serializable, Copyable {
 			set(i, get(i) - vector.get(i));
 		}
 	}
+
+    /**
+     * Add a scaled vector onto this vector in place,
+     * this = this + scale * vector
+     * @param scale the scale
+     * @param vector the vector to add
+     */
+    public void plusEquals(double scale, Vector vector) {
+        for (int i = 0; i < size(); i++) {
+            set(i, get(i) + scale * vector.get(i));
+        }
+    }
+
+    /**
+     * Subtract a vector from this vector into another,
+     * result = this - vector
+     * @param vector the vector to subtract
+     * @param result the vector to store the result in,
+     * which may be this vector or the other
+     */
+    public void minusInto(Vector vector, Vector result) {
+        for (int i = 0; i < size(); i++) {
+            result.set(i, get(i) - vector.get(i));
+        }
+    }
+
+    /**
+     * Multiply this vector by a scale into another,
+     * result = scale * this
+     * @param scale the scale
+     * @param result the vector to store the result in
+     */
+    public void timesInto(double scale, Vector result) {
+        for (int i = 0; i < size(); i++) {
+            result.set(i, get(i) * scale);
+        }
+    }
+
+    /**
+     * Copy the values of another vector into this one
+     * @param vector the vector to copy
+     */
+    public void set(Vector vector) {
+        for (int i = 0; i < size(); i++) {
+            set(i, vector.get(i));
+        }
+    }
     
     /**
      * Get the two norm squared of this vector
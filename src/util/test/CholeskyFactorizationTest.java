@@ -1,7 +1,10 @@
 package util.test;
 
+import java.util.concurrent.ForkJoinPool;
+
 import util.linalg.CholeskyFactorization;
 import util.linalg.DenseVector;
+import util.linalg.FlatMatrix;
 import util.linalg.Matrix;
 import util.linalg.RectangularMatrix;
 import util.linalg.Vector;
@@ -12,7 +15,11 @@ import util.linalg.Vector;
  * @version 1.0
  */
 public class CholeskyFactorizationTest {
-
+	/**
+	 * The size of the large test, above both the block
+	 * size and the size at which factoring goes parallel
+	 */
+	private static final int N = 300;
 	
 	/**
 	 * The test main
@@ -36,5 +43,90 @@ public class CholeskyFactorizationTest {
 		Vector x = cf.solve(v);
 		System.out.println(x);
 		System.out.println(m.times(x));
+		
+		// a large random positive definite matrix,
+		// factored blocked, serially and in parallel
+		Matrix r = RectangularMatrix.random(N);
+		Matrix big = r.times(r.transpose()).plus(RectangularMatrix.eye(N).times(N));
+		double[][] reference = unblocked(big);
+		CholeskyFactorization serial = new CholeskyFactorization(big, null);
+		CholeskyFactorization parallel = new CholeskyFactorization(big, new ForkJoinPool(4));
+		System.out.println("serial factor difference " + difference(serial.getL(), reference));
+		System.out.println("parallel factor difference " + difference(parallel.getL(), reference));
+		
+		// one right hand side, into a new vector and in place
+		Vector rhs = RectangularMatrix.random(N, 1).getColumn(0);
+		Vector solution = serial.solve(rhs);
+		DenseVector into = new DenseVector(N);
+		serial.solveInto(rhs, into);
+		DenseVector inPlace = (DenseVector) rhs.copy();
+		serial.solveInto(inPlace, inPlace);
+		System.out.println("solve residual " + big.times(solution).minus(rhs).norm());
+		System.out.println("solveInto difference " + into.minus(solution).norm()
+			+ ", in place " + inPlace.minus(solution).norm());
+		
+		// many right hand sides at once against one at a time
+		Matrix rhss = RectangularMatrix.random(N, 5);
+		Matrix solutions = serial.solve(rhss);
+		double most = 0;
+		for (int j = 0; j < rhss.n(); j++) {
+			Vector column = serial.solve(rhss.getColumn(j));
+			most = Math.max(most, column.minus(solutions.getColumn(j)).norm());
+		}
+		System.out.println("solve(Matrix) difference " + most);
+		
+		// and into a view of part of a larger array
+		FlatMatrix padded = new FlatMatrix(N + 2, 7);
+		FlatMatrix view = (FlatMatrix) padded.get(1, N + 1, 1, 6);
+		for (int i = 0; i < N; i++) {
+			for (int j = 0; j < 5; j++) {
+				view.set(i, j, rhss.get(i, j));
+			}
+		}
+		serial.solveInto(view);
+		most = 0;
+		for (int i = 0; i < N; i++) {
+			for (int j = 0; j < 5; j++) {
+				most = Math.max(most, Math.abs(view.get(i, j) - solutions.get(i, j)));
+			}
+		}
+		System.out.println("solveInto(view) difference " + most
+			+ ", border untouched " + (padded.get(0, 0) == 0 && padded.get(N + 1, 6) == 0));
+	}
+	
+	/**
+	 * Factor a matrix the textbook way, one entry at a time
+	 * @param a the matrix
+	 * @return the lower triangular factor
+	 */
+	private static double[][] unblocked(Matrix a) {
+		int n = a.n();
+		double[][] l = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				double sum = a.get(i, j);
+				for (int k = 0; k < j; k++) {
+					sum -= l[i][k] * l[j][k];
+				}
+				l[i][j] = i == j ? Math.sqrt(sum) : sum / l[j][j];
+			}
+		}
+		return l;
+	}
+	
+	/**
+	 * Find the largest difference between a matrix and an array
+	 * @param m the matrix
+	 * @param a the array
+	 * @return the largest difference
+	 */
+	private static double difference(Matrix m, double[][] a) {
+		double most = 0;
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < a[i].length; j++) {
+				most = Math.max(most, Math.abs(m.get(i, j) - a[i][j]));
+			}
+		}
+		return most;
 	}
 }
@@ -0,0 +1,80 @@
+package util.test;
+
+import util.linalg.DenseVector;
+import util.linalg.FlatMatrix;
+import util.linalg.Matrix;
+import util.linalg.RectangularMatrix;
+import util.linalg.Vector;
+
+/**
+ * A test of flat matrices and their views against rectangular
+ * matrices, at sizes bigger than the blocks they work on
+ * @version 1.0
+ */
+public class FlatMatrixTest {
+	/**
+	 * The number of rows of the test matrix
+	 */
+	private static final int M = 150;
+
+	/**
+	 * The number of columns of the test matrix
+	 */
+	private static final int N = 130;
+
+	/**
+	 * The test main
+	 * @param args ignored
+	 */
+	public static void main(String[] args) {
+		RectangularMatrix a = RectangularMatrix.random(M, N);
+		FlatMatrix flat = new FlatMatrix(a);
+		System.out.println("copy difference " + difference(flat, a));
+		System.out.println("transpose difference "
+			+ difference(flat.transpose(), a.transpose()));
+
+		// a view in the middle of the matrix and the same part copied out
+		Matrix view = flat.get(10, 110, 5, 105);
+		Matrix part = a.get(10, 110, 5, 105);
+		System.out.println("view difference " + difference(view, part));
+		RectangularMatrix b = RectangularMatrix.random(100, 90);
+		System.out.println("view product difference "
+			+ difference(view.times(new FlatMatrix(b)), part.times(b)));
+		System.out.println("view by view product difference "
+			+ difference(view.times(flat.get(20, 120, 0, 90)), part.times(a.get(20, 120, 0, 90))));
+
+		// vector products on the view
+		Vector v = RectangularMatrix.random(100, 1).getColumn(0);
+		DenseVector result = new DenseVector(100);
+		view.timesInto(v, result);
+		System.out.println("timesInto difference " + result.minus(part.times(v)).norm());
+		view.transposeTimesInto(v, result);
+		System.out.println("transposeTimesInto difference "
+			+ result.minus(part.transpose().times(v)).norm());
+
+		// changes to a view are changes to the matrix
+		view.set(0, 0, 42);
+		view.plusEquals(new FlatMatrix(part));
+		System.out.println("view writes through " + (flat.get(10, 5) == 42 + part.get(0, 0))
+			+ ", rest untouched " + (flat.get(9, 5) == a.get(9, 5) && flat.get(10, 4) == a.get(10, 4)));
+	}
+
+	/**
+	 * Find the largest difference between two matrices
+	 * @param a the first matrix
+	 * @param b the second matrix
+	 * @return the largest difference
+	 */
+	private static double difference(Matrix a, Matrix b) {
+		if (a.m() != b.m() || a.n() != b.n()) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double most = 0;
+		for (int i = 0; i < a.m(); i++) {
+			for (int j = 0; j < a.n(); j++) {
+				most = Math.max(most, Math.abs(a.get(i, j) - b.get(i, j)));
+			}
+		}
+		return most;
+	}
+}